@@ -0,0 +1,89 @@
+package com.whispersofus.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Encodes STOMP payloads as CBOR for sessions that negotiated the binary codec
+ * Null fields are left out and LocalDateTime values are written as epoch milliseconds.
+ * Spring only sends binary WebSocket frames for application/octet-stream payloads, so
+ * CBOR frames carry that content type; matching is strict so every other frame keeps
+ * going through the default JSON converter.
+ */
+public class CborMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType CONTENT_TYPE = new MimeType("application", "octet-stream");
+
+    private final ObjectMapper mapper;
+
+    public CborMessageConverter() {
+        super(CONTENT_TYPE);
+        setStrictContentTypeMatch(true);
+
+        SimpleModule epochMillis = new SimpleModule("EpochMillisLocalDateTime");
+        epochMillis.addSerializer(LocalDateTime.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        });
+        epochMillis.addDeserializer(LocalDateTime.class, new JsonDeserializer<>() {
+            @Override
+            public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+            }
+        });
+
+        this.mapper = CBORMapper.builder()
+                .addModule(epochMillis)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // byte[] payloads are already encoded and stay with the ByteArrayMessageConverter
+        return clazz != byte[].class;
+    }
+
+    @Override
+    @Nullable
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, @Nullable Object conversionHint) {
+        try {
+            return mapper.readValue((byte[]) message.getPayload(), targetClass);
+        } catch (IOException | ClassCastException e) {
+            throw new MessageConversionException(message, "Could not read CBOR payload: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @Nullable
+    protected Object convertToInternal(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write CBOR payload: " + e.getMessage(), e);
+        }
+    }
+}
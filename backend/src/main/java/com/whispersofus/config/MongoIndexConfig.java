@@ -0,0 +1,58 @@
+package com.whispersofus.config;
+
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ChatMessageBucket;
+import com.whispersofus.model.ConversationSummary;
+import com.whispersofus.model.EmotionRollup;
+import com.whispersofus.model.LoveNote;
+import com.whispersofus.model.User;
+import com.whispersofus.model.UserPartner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on document classes
+ * Spring Boot does not auto-create indexes, so the @Indexed/@CompoundIndex annotations
+ * of the documents listed here are applied explicitly once the application is ready
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+        User.class,
+        UserPartner.class,
+        ChatMessage.class,
+        ChatMessageBucket.class,
+        ConversationSummary.class,
+        LoveNote.class,
+        EmotionRollup.class
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> documentType : INDEXED_DOCUMENTS) {
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(documentType);
+                resolver.resolveIndexFor(documentType).forEach(indexOps::ensureIndex);
+                log.info("Ensured indexes for {}", documentType.getSimpleName());
+            } catch (Exception e) {
+                log.warn("Could not ensure indexes for {}: {}", documentType.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
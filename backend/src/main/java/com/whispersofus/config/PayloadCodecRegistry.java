@@ -0,0 +1,79 @@
+package com.whispersofus.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which payload codec each STOMP session negotiated on CONNECT
+ * Sessions ask for CBOR with the Payload-Codec header; SockJS sessions always get JSON
+ * because SockJS only carries text frames. A user receives CBOR only when every one of
+ * their sessions negotiated it, so older clients keep working alongside newer ones.
+ */
+@Component
+@Slf4j
+public class PayloadCodecRegistry {
+
+    public static final String PAYLOAD_CODEC_HEADER = "Payload-Codec";
+    public static final String CBOR_CODEC = "cbor";
+
+    // Session attribute set during the handshake of the native (non-SockJS) endpoint
+    public static final String NATIVE_TRANSPORT_ATTRIBUTE = "nativeTransport";
+
+    // userId -> sessionId -> session negotiated CBOR
+    private final Map<String, Map<String, Boolean>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Record the codec of a newly connected session
+     * @param userId The database ID of the session's user
+     * @param sessionId The WebSocket session ID
+     * @param cbor Whether the session negotiated CBOR
+     */
+    public void register(String userId, String sessionId, boolean cbor) {
+        sessions.computeIfAbsent(userId, id -> new ConcurrentHashMap<>()).put(sessionId, cbor);
+        log.debug("Session {} of user {} uses {} payloads", sessionId, userId, cbor ? "CBOR" : "JSON");
+    }
+
+    /**
+     * Content type to use for frames sent to every session of a user
+     * @param userId The database ID of the receiving user
+     * @return The CBOR content type, or null for the default JSON encoding
+     */
+    public MimeType contentTypeForUser(String userId) {
+        Map<String, Boolean> userSessions = sessions.get(userId);
+        if (userSessions == null || userSessions.isEmpty() || userSessions.containsValue(Boolean.FALSE)) {
+            return null;
+        }
+        return CborMessageConverter.CONTENT_TYPE;
+    }
+
+    /**
+     * Content type to use for frames sent to one session of a user
+     * @param userId The database ID of the receiving user
+     * @param sessionId The WebSocket session ID
+     * @return The CBOR content type, or null for the default JSON encoding
+     */
+    public MimeType contentTypeForSession(String userId, String sessionId) {
+        Map<String, Boolean> userSessions = sessions.get(userId);
+        boolean cbor = userSessions != null && Boolean.TRUE.equals(userSessions.get(sessionId));
+        return cbor ? CborMessageConverter.CONTENT_TYPE : null;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal principal = event.getUser();
+        if (principal == null) {
+            return;
+        }
+        sessions.computeIfPresent(principal.getName(), (userId, userSessions) -> {
+            userSessions.remove(event.getSessionId());
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+    }
+}
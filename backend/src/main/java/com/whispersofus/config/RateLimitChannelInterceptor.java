@@ -0,0 +1,70 @@
+package com.whispersofus.config;
+
+import com.whispersofus.event.RateLimitedEvent;
+import com.whispersofus.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops STOMP SEND frames of users that exceed their rate limit
+ * Runs before the frame is handed to a @MessageMapping method, so a flooding client
+ * costs neither a user lookup nor a database write. Sessions without a bound user are
+ * limited per session id. Dropped chat messages of bound users are reported back to the
+ * sender through a {@link RateLimitedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        RateLimiter.EndpointClass endpointClass = classify(accessor.getDestination());
+        if (endpointClass == null) {
+            return message;
+        }
+
+        StompPrincipal principal = accessor.getUser() instanceof StompPrincipal bound ? bound : null;
+        String key = principal != null ? principal.getFirebaseUid() : "session:" + accessor.getSessionId();
+        long wait = rateLimiter.tryAcquireOrWait(endpointClass, key);
+        if (wait == 0) {
+            return message;
+        }
+
+        log.debug("Rate limit exceeded by {} on {}", key, accessor.getDestination());
+        if (principal != null && endpointClass == RateLimiter.EndpointClass.CHAT_MESSAGE) {
+            eventPublisher.publishEvent(new RateLimitedEvent(
+                principal.getUserId(), accessor.getDestination(), TimeUnit.NANOSECONDS.toMillis(wait) + 1));
+        }
+        return null;
+    }
+
+    private RateLimiter.EndpointClass classify(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        return switch (destination) {
+            case "/app/chat.sendMessage" -> RateLimiter.EndpointClass.CHAT_MESSAGE;
+            case "/app/chat.typing", "/app/chat.stopTyping", "/app/chat.read" -> RateLimiter.EndpointClass.TYPING;
+            default -> null;
+        };
+    }
+}
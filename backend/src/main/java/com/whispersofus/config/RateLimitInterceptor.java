@@ -0,0 +1,58 @@
+package com.whispersofus.config;
+
+import com.whispersofus.service.RateLimiter;
+import com.whispersofus.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects REST writes of users that exceed their rate limit with 429 Too Many Requests
+ * Callers are keyed by their Firebase-UID header once it has been resolved to a user and
+ * cached, so no database lookup happens before the check. Until then, and for UIDs that
+ * match no user, requests are keyed by remote address, so made-up UIDs share one bucket.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final UserService userService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RateLimiter.EndpointClass endpointClass = classify(request);
+        if (endpointClass == null) {
+            return true;
+        }
+
+        String firebaseUid = request.getHeader("Firebase-UID");
+        String key = userService.isResolved(firebaseUid) ? firebaseUid : "ip:" + request.getRemoteAddr();
+        long wait = rateLimiter.tryAcquireOrWait(endpointClass, key);
+        if (wait == 0) {
+            return true;
+        }
+
+        log.debug("Rate limit exceeded by {} on {} {}", key, request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.toRetryAfterSeconds(wait)));
+        return false;
+    }
+
+    private RateLimiter.EndpointClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return null;
+        }
+        if ("POST".equals(method) && "/chat/send".equals(request.getServletPath())) {
+            return RateLimiter.EndpointClass.CHAT_MESSAGE;
+        }
+        return RateLimiter.EndpointClass.WRITE;
+    }
+}
@@ -0,0 +1,65 @@
+package com.whispersofus.config;
+
+import com.whispersofus.model.User;
+import com.whispersofus.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the Firebase-UID header sent with the STOMP CONNECT frame to a user
+ * and binds it to the session, so later frames can be routed without a lookup
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    public static final String FIREBASE_UID_HEADER = "Firebase-UID";
+
+    private final UserService userService;
+    private final PayloadCodecRegistry payloadCodecRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String firebaseUid = accessor.getFirstNativeHeader(FIREBASE_UID_HEADER);
+        if (firebaseUid == null || firebaseUid.isBlank()) {
+            log.warn("STOMP CONNECT without {} header on session {}", FIREBASE_UID_HEADER, accessor.getSessionId());
+            return message;
+        }
+
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            log.warn("STOMP CONNECT for unknown Firebase UID: {}", firebaseUid);
+            return message;
+        }
+
+        accessor.setUser(new StompPrincipal(userOpt.get().getId(), firebaseUid));
+        payloadCodecRegistry.register(userOpt.get().getId(), accessor.getSessionId(), negotiatesCbor(accessor));
+        log.debug("Bound STOMP session {} to user {}", accessor.getSessionId(), userOpt.get().getId());
+        return message;
+    }
+
+    // CBOR needs binary WebSocket frames, which only the native endpoint can carry
+    private boolean negotiatesCbor(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean nativeTransport = attributes != null
+                && Boolean.TRUE.equals(attributes.get(PayloadCodecRegistry.NATIVE_TRANSPORT_ATTRIBUTE));
+        return nativeTransport
+                && PayloadCodecRegistry.CBOR_CODEC.equalsIgnoreCase(accessor.getFirstNativeHeader(PayloadCodecRegistry.PAYLOAD_CODEC_HEADER));
+    }
+}
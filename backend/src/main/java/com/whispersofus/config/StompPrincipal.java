@@ -0,0 +1,36 @@
+package com.whispersofus.config;
+
+import java.security.Principal;
+
+/**
+ * Principal attached to a STOMP session once its Firebase UID has been resolved
+ * The name is the database user ID so user destinations can be addressed by it directly
+ */
+public class StompPrincipal implements Principal {
+
+    private final String userId;
+    private final String firebaseUid;
+
+    public StompPrincipal(String userId, String firebaseUid) {
+        this.userId = userId;
+        this.firebaseUid = firebaseUid;
+    }
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFirebaseUid() {
+        return firebaseUid;
+    }
+
+    @Override
+    public String toString() {
+        return "StompPrincipal{userId=" + userId + ", firebaseUid=" + firebaseUid + "}";
+    }
+}
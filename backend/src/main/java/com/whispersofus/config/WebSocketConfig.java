@@ -1,23 +1,123 @@
 package com.whispersofus.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+    private final RateLimitChannelInterceptor rateLimitChannelInterceptor;
+    private final MeterRegistry meterRegistry;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
     @Value("${spring.web.cors.allowed-origins:http://localhost:3000,http://localhost:5173,https://*.vercel.app}")
     private String allowedOrigins;
 
+    // "simple" keeps broker state in this JVM, "relay" forwards to an external STOMP broker
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.broker.relay.heartbeat-send-interval:10000}")
+    private long relayHeartbeatSendInterval;
+
+    @Value("${app.websocket.broker.relay.heartbeat-receive-interval:10000}")
+    private long relayHeartbeatReceiveInterval;
+
+    @Value("${app.websocket.heartbeat-interval:10000}")
+    private long heartbeatInterval;
+
+    // Per-session outbound limits; a session exceeding either one is closed
+    @Value("${app.websocket.send-time-limit:15000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:4}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker for /topic and /queue destinations
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            enableBrokerRelay(config);
+        } else {
+            // Enable a simple memory-based message broker for /topic and /queue destinations.
+            // Heartbeats let presence notice clients that vanished without a DISCONNECT.
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatInterval, heartbeatInterval})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         
         // Set application destination prefix for messages bound for @MessageMapping-annotated methods
         config.setApplicationDestinationPrefixes("/app");
@@ -26,6 +126,92 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    // Forward /topic and /queue to the external broker so every backend instance sees every frame.
+    // The relay's shared system connection heartbeats with the broker and reconnects on its own
+    // when the broker goes away; client sessions are closed and re-established by the frontend.
+    private void enableBrokerRelay(MessageBrokerRegistry config) {
+        log.info("Using STOMP broker relay at {}:{}", relayHost, relayPort);
+
+        StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setClientLogin(relayLogin)
+                .setClientPasscode(relayPasscode)
+                .setSystemLogin(relayLogin)
+                .setSystemPasscode(relayPasscode)
+                .setSystemHeartbeatSendInterval(relayHeartbeatSendInterval)
+                .setSystemHeartbeatReceiveInterval(relayHeartbeatReceiveInterval)
+                // Share connected users between instances so /user destinations resolve
+                // for partners connected to a different node
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+
+        if (!relayVirtualHost.isBlank()) {
+            relay.setVirtualHost(relayVirtualHost);
+        }
+    }
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (event.isBrokerAvailable()) {
+            log.info("STOMP message broker is available");
+        } else {
+            log.warn("STOMP message broker is unavailable, frames are dropped until it reconnects");
+        }
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Bind the session to its user on CONNECT so chat frames can be routed per couple,
+        // then refresh the session's presence heartbeat on every inbound frame and drop
+        // SEND frames of users over their rate limit before they reach a handler
+        registration.interceptors(stompAuthChannelInterceptor, presenceChannelInterceptor, rateLimitChannelInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(this::countEvictions);
+    }
+
+    // Sessions that exceed the send limits are closed with SESSION_NOT_RELIABLE
+    private WebSocketHandler countEvictions(WebSocketHandler handler) {
+        Counter evictions = Counter.builder("websocket.sessions.evicted")
+                .description("Sessions closed because they could not keep up with outbound frames")
+                .register(meterRegistry);
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                    evictions.increment();
+                    log.warn("Evicted slow WebSocket session {}", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Binary codec for sessions that negotiate it; the default converters (JSON) are kept
+        messageConverters.add(new CborMessageConverter());
+        return true;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Parse allowed origins from environment variable
@@ -39,5 +225,26 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setSessionCookieNeeded(false)
                 .setHeartbeatTime(25000)
                 .setDisconnectDelay(5000);
+
+        // Plain WebSocket endpoint for clients that can negotiate binary (CBOR) frames
+        registry.addEndpoint("/ws-chat-native")
+                .setAllowedOrigins(origins)
+                .addInterceptors(nativeTransportMarker());
+    }
+
+    private HandshakeInterceptor nativeTransportMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(PayloadCodecRegistry.NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
     }
 } 
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.whispersofus.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes queue depth and thread usage of the STOMP inbound and outbound executors
+ * Registered outside WebSocketConfig because the executors are built from it
+ */
+@Component
+public class WebSocketExecutorMetrics {
+
+    public WebSocketExecutorMetrics(MeterRegistry meterRegistry,
+                                    @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inboundExecutor,
+                                    @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor) {
+        register(meterRegistry, "inbound", inboundExecutor);
+        register(meterRegistry, "outbound", outboundExecutor);
+    }
+
+    private void register(MeterRegistry meterRegistry, String channel, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("websocket.channel.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Frames waiting for a channel thread")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.threads.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Channel threads currently processing frames")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.threads.pool", executor, ThreadPoolTaskExecutor::getPoolSize)
+                .description("Channel threads currently allocated")
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+}
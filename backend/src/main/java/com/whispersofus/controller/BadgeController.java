@@ -0,0 +1,39 @@
+package com.whispersofus.controller;
+
+import com.whispersofus.dto.UnreadBadgesResponse;
+import com.whispersofus.model.User;
+import com.whispersofus.service.UnreadBadgeService;
+import com.whispersofus.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Unread badge counts for chat messages and love notes in a single call
+ * Changes are also pushed to /user/queue/badges, so clients only need this on startup
+ */
+@RestController
+@RequestMapping("/badges")
+@RequiredArgsConstructor
+@Slf4j
+public class BadgeController {
+
+    private final UnreadBadgeService unreadBadgeService;
+    private final UserService userService;
+
+    @GetMapping
+    public ResponseEntity<UnreadBadgesResponse> getBadges(@RequestHeader("Firebase-UID") String firebaseUid) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(unreadBadgeService.getBadges(userOpt.get().getId()));
+    }
+}
@@ -1,14 +1,21 @@
 package com.whispersofus.controller;
 
 import com.whispersofus.dto.ChatMessageRequest;
+import com.whispersofus.dto.ConversationSummaryResponse;
+import com.whispersofus.dto.CursorSlice;
+import com.whispersofus.dto.KeysetCursor;
 import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ConversationSummary;
 import com.whispersofus.model.MessageType;
 import com.whispersofus.model.User;
 import com.whispersofus.service.ChatMessageService;
+import com.whispersofus.service.ConversationSummaryService;
+import com.whispersofus.service.PartnerResolver;
 import com.whispersofus.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,8 +29,13 @@ import java.util.Optional;
 @Slf4j
 public class ChatMessageController {
     
+    private static final int MAX_HISTORY_LIMIT = 100;
+    private static final int MAX_INBOX_LIMIT = 50;
+    
     private final ChatMessageService chatMessageService;
     private final UserService userService;
+    private final PartnerResolver partnerResolver;
+    private final ConversationSummaryService conversationSummaryService;
     
     @PostMapping("/send")
     public ResponseEntity<ChatMessage> sendMessage(@Valid @RequestBody ChatMessageRequest request,
@@ -37,13 +49,8 @@ public class ChatMessageController {
         // If no receiverId provided, find the partner (assuming 2-person relationship)
         String finalReceiverId = request.getReceiverId();
         if (finalReceiverId == null) {
-            List<User> allUsers = userService.findAllUsers();
-            Optional<User> partner = allUsers.stream()
-                .filter(user -> !user.getId().equals(senderOpt.get().getId()))
-                .findFirst();
-            if (partner.isPresent()) {
-                finalReceiverId = partner.get().getId();
-            } else {
+            finalReceiverId = partnerResolver.findPartnerId(senderOpt.get().getId()).orElse(null);
+            if (finalReceiverId == null) {
                 log.warn("No partner found for user: {}", senderOpt.get().getId());
                 return ResponseEntity.badRequest().build();
             }
@@ -74,6 +81,9 @@ public class ChatMessageController {
                                                         @RequestParam(required = false) String partnerId,
                                                         @RequestParam(defaultValue = "0") int page,
                                                         @RequestParam(defaultValue = "20") int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
         Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
         if (userOpt.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -82,23 +92,64 @@ public class ChatMessageController {
         // If no partnerId provided, find the partner
         String finalPartnerId = partnerId;
         if (finalPartnerId == null) {
-            List<User> allUsers = userService.findAllUsers();
-            Optional<User> partner = allUsers.stream()
-                .filter(user -> !user.getId().equals(userOpt.get().getId()))
-                .findFirst();
-            if (partner.isPresent()) {
-                finalPartnerId = partner.get().getId();
-            } else {
+            finalPartnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+            if (finalPartnerId == null) {
                 return ResponseEntity.badRequest().build();
             }
         }
         
+        int finalSize = Math.max(1, Math.min(size, MAX_HISTORY_LIMIT));
         Page<ChatMessage> messages = chatMessageService.getMessagesBetweenUsers(
-            userOpt.get().getId(), finalPartnerId, page, size);
+            userOpt.get().getId(), finalPartnerId, page, finalSize);
         
         return ResponseEntity.ok(messages);
     }
     
+    /**
+     * Keyset-paginated chat history, newest first
+     * Pass the nextCursor of a response as 'before' to load the next older slice
+     */
+    @GetMapping("/messages/history")
+    public ResponseEntity<CursorSlice<ChatMessage>> getMessageHistory(@RequestHeader("Firebase-UID") String firebaseUid,
+                                                                     @RequestParam(required = false) String partnerId,
+                                                                     @RequestParam(required = false) String before,
+                                                                     @RequestParam(defaultValue = "20") int limit) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String finalPartnerId = partnerId;
+        if (finalPartnerId == null) {
+            finalPartnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+            if (finalPartnerId == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        KeysetCursor cursor = null;
+        if (before != null) {
+            try {
+                cursor = KeysetCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid history cursor: {}", before);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        int finalLimit = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        Slice<ChatMessage> slice = chatMessageService.getMessagesBefore(
+            userOpt.get().getId(), finalPartnerId, cursor, finalLimit);
+        
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            ChatMessage last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return ResponseEntity.ok(new CursorSlice<>(slice.getContent(), slice.hasNext(), nextCursor));
+    }
+    
     @GetMapping("/unread")
     public ResponseEntity<List<ChatMessage>> getUnreadMessages(@RequestHeader("Firebase-UID") String firebaseUid) {
         Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
@@ -143,13 +194,8 @@ public class ChatMessageController {
         // Find partner if not provided
         String finalPartnerId = partnerId;
         if (finalPartnerId == null) {
-            List<User> allUsers = userService.findAllUsers();
-            Optional<User> partner = allUsers.stream()
-                .filter(user -> !user.getId().equals(userOpt.get().getId()))
-                .findFirst();
-            if (partner.isPresent()) {
-                finalPartnerId = partner.get().getId();
-            } else {
+            finalPartnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+            if (finalPartnerId == null) {
                 return ResponseEntity.badRequest().build();
             }
         }
@@ -169,13 +215,8 @@ public class ChatMessageController {
         // Find partner if not provided
         String finalPartnerId = partnerId;
         if (finalPartnerId == null) {
-            List<User> allUsers = userService.findAllUsers();
-            Optional<User> partner = allUsers.stream()
-                .filter(user -> !user.getId().equals(userOpt.get().getId()))
-                .findFirst();
-            if (partner.isPresent()) {
-                finalPartnerId = partner.get().getId();
-            } else {
+            finalPartnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+            if (finalPartnerId == null) {
                 return ResponseEntity.badRequest().build();
             }
         }
@@ -187,6 +228,46 @@ public class ChatMessageController {
                            .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Conversations of the user with their last message and unread count, most recent first
+     */
+    @GetMapping("/conversations")
+    public ResponseEntity<List<ConversationSummaryResponse>> getConversations(@RequestHeader("Firebase-UID") String firebaseUid,
+                                                                             @RequestParam(defaultValue = "20") int limit) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String userId = userOpt.get().getId();
+        // Make sure the conversation with the current partner shows up even if it predates summaries
+        partnerResolver.findPartnerId(userId)
+            .ifPresent(partnerId -> chatMessageService.getConversationSummary(userId, partnerId));
+        
+        int finalLimit = Math.max(1, Math.min(limit, MAX_INBOX_LIMIT));
+        List<ConversationSummaryResponse> conversations = conversationSummaryService.getInbox(userId, finalLimit).stream()
+            .map(summary -> toResponse(summary, userId))
+            .toList();
+        return ResponseEntity.ok(conversations);
+    }
+    
+    private ConversationSummaryResponse toResponse(ConversationSummary summary, String userId) {
+        String partnerId = summary.getParticipantIds().stream()
+            .filter(id -> !id.equals(userId))
+            .findFirst()
+            .orElse(userId);
+        return new ConversationSummaryResponse(
+            summary.getId(),
+            partnerId,
+            summary.getLastMessageId(),
+            summary.getLastSenderId(),
+            summary.getLastMessageSnippet(),
+            summary.getLastMessageType() != null ? summary.getLastMessageType().name() : null,
+            summary.getLastMessageAt(),
+            summary.unreadCountOf(userId)
+        );
+    }
+    
     @DeleteMapping("/{messageId}")
     public ResponseEntity<Void> deleteMessage(@PathVariable String messageId) {
         try {
@@ -1,21 +1,26 @@
 package com.whispersofus.controller;
 
+import com.whispersofus.dto.CursorSlice;
+import com.whispersofus.dto.EmotionRollupResponse;
+import com.whispersofus.dto.KeysetCursor;
 import com.whispersofus.dto.LoveNoteRequest;
 import com.whispersofus.dto.ReactionRequest;
+import com.whispersofus.model.ChatMessage;
 import com.whispersofus.model.LoveNote;
 import com.whispersofus.model.User;
+import com.whispersofus.service.EmotionRollupService;
 import com.whispersofus.service.LoveNoteService;
+import com.whispersofus.service.PartnerResolver;
 import com.whispersofus.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +30,13 @@ import java.util.Optional;
 @Slf4j
 public class LoveNoteController {
     
+    private static final int MAX_FEED_LIMIT = 50;
+    private static final int MAX_ANALYTICS_MONTHS = 60;
+    
     private final LoveNoteService loveNoteService;
     private final UserService userService;
+    private final PartnerResolver partnerResolver;
+    private final EmotionRollupService emotionRollupService;
     
     @PostMapping
     public ResponseEntity<LoveNote> createLoveNote(@Valid @RequestBody LoveNoteRequest request,
@@ -41,15 +51,8 @@ public class LoveNoteController {
         // If no receiverId provided, find the partner (assuming 2-person relationship)
         String finalReceiverId = receiverId;
         if (finalReceiverId == null) {
-            // For now, we'll use a default logic - in a real app you'd have partner mapping
-            List<User> allUsers = userService.findAllUsers();
-            Optional<User> partner = allUsers.stream()
-                .filter(user -> !user.getId().equals(senderOpt.get().getId()))
-                .findFirst();
-            if (partner.isPresent()) {
-                System.out.println("partner found");
-                finalReceiverId = partner.get().getId();
-            } else {
+            finalReceiverId = partnerResolver.findPartnerId(senderOpt.get().getId()).orElse(null);
+            if (finalReceiverId == null) {
                 System.out.println("partner not found");
                 return ResponseEntity.badRequest().build();
             }
@@ -59,7 +62,8 @@ public class LoveNoteController {
             senderOpt.get().getId(), 
             finalReceiverId,
             request.getContent(), 
-            request.getEmotionTag()
+            request.getEmotionTag(),
+            request.getDeliverAt() != null ? request.getDeliverAt().toInstant() : null
         );
         
         return ResponseEntity.ok(loveNote);
@@ -67,14 +71,86 @@ public class LoveNoteController {
     
     @GetMapping
     public ResponseEntity<Page<LoveNote>> getAllLoveNotes(
+            @RequestHeader("Firebase-UID") String firebaseUid,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<LoveNote> loveNotes = loveNoteService.getAllLoveNotes(pageable);
+        // Only the notes of the caller's partnership are visible
+        String partnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+        if (partnerId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Page<LoveNote> loveNotes = loveNoteService.getLoveNotesForCouple(userOpt.get().getId(), partnerId, page, size);
         return ResponseEntity.ok(loveNotes);
     }
     
+    /**
+     * Keyset-paginated love note feed of the caller's partnership, newest first
+     * Pass the nextCursor of a response as 'before' to load the next older slice
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<CursorSlice<LoveNote>> getLoveNoteFeed(@RequestHeader("Firebase-UID") String firebaseUid,
+                                                                @RequestParam(required = false) String before,
+                                                                @RequestParam(defaultValue = "20") int limit) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String partnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+        if (partnerId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        KeysetCursor cursor = null;
+        if (before != null) {
+            try {
+                cursor = KeysetCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid love note cursor: {}", before);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        int finalLimit = Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+        Slice<LoveNote> slice = loveNoteService.getLoveNoteFeed(userOpt.get().getId(), partnerId, cursor, finalLimit);
+        
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            LoveNote last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return ResponseEntity.ok(new CursorSlice<>(slice.getContent(), slice.hasNext(), nextCursor));
+    }
+    
+    /**
+     * Love notes per emotion tag and month for the caller's partnership, oldest month first
+     */
+    @GetMapping("/analytics/emotions")
+    public ResponseEntity<List<EmotionRollupResponse>> getEmotionAnalytics(@RequestHeader("Firebase-UID") String firebaseUid,
+                                                                          @RequestParam(defaultValue = "12") int months) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String partnerId = partnerResolver.findPartnerId(userOpt.get().getId()).orElse(null);
+        if (partnerId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        YearMonth to = YearMonth.now();
+        YearMonth from = to.minusMonths(Math.max(1, Math.min(months, MAX_ANALYTICS_MONTHS)) - 1);
+        return ResponseEntity.ok(emotionRollupService.getMonthlyEmotions(
+            ChatMessage.conversationIdOf(userOpt.get().getId(), partnerId), from, to));
+    }
+    
     @GetMapping("/unread")
     public ResponseEntity<List<LoveNote>> getUnreadNotes(@RequestHeader("Firebase-UID") String firebaseUid) {
         Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
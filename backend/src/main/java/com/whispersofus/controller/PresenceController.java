@@ -0,0 +1,46 @@
+package com.whispersofus.controller;
+
+import com.whispersofus.dto.PresenceResponse;
+import com.whispersofus.model.User;
+import com.whispersofus.service.PartnerResolver;
+import com.whispersofus.service.PresenceRegistry;
+import com.whispersofus.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Whether the caller's partner currently has an open chat session
+ * Changes are also pushed to /user/queue/presence
+ */
+@RestController
+@RequestMapping("/presence")
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceController {
+
+    private final PresenceRegistry presenceRegistry;
+    private final PartnerResolver partnerResolver;
+    private final UserService userService;
+
+    @GetMapping
+    public ResponseEntity<PresenceResponse> getPartnerPresence(@RequestHeader("Firebase-UID") String firebaseUid) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<String> partnerId = partnerResolver.findPartnerId(userOpt.get().getId());
+        if (partnerId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(presenceRegistry.getPresence(partnerId.get()));
+    }
+}
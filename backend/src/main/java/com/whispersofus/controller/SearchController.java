@@ -0,0 +1,66 @@
+package com.whispersofus.controller;
+
+import com.whispersofus.dto.SearchResult;
+import com.whispersofus.model.User;
+import com.whispersofus.service.PartnerResolver;
+import com.whispersofus.service.SearchIndex;
+import com.whispersofus.service.SearchService;
+import com.whispersofus.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Full-text search over the chat messages and love notes of the caller's partnership
+ */
+@RestController
+@RequestMapping("/search")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchController {
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_PAGE = 200;
+
+    private final SearchService searchService;
+    private final UserService userService;
+    private final PartnerResolver partnerResolver;
+
+    @GetMapping
+    public ResponseEntity<Page<SearchResult>> search(@RequestHeader("Firebase-UID") String firebaseUid,
+                                                     @RequestParam("q") String query,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        Optional<User> userOpt = userService.findByFirebaseUid(firebaseUid);
+        if (userOpt.isEmpty() || query.isBlank() || page < 0 || page > MAX_PAGE || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SearchIndex.DocumentType documentType = null;
+        if (type != null) {
+            try {
+                documentType = SearchIndex.DocumentType.valueOf(type.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        Optional<String> partnerId = partnerResolver.findPartnerId(userOpt.get().getId());
+        if (partnerId.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(searchService.search(
+            userOpt.get().getId(), partnerId.get(), query, documentType, page, Math.min(size, MAX_PAGE_SIZE)));
+    }
+}
@@ -112,9 +112,12 @@ public class SurpriseController {
     }
     
     @PutMapping("/{id}/unlock")
-    public ResponseEntity<Surprise> unlockSurprise(@PathVariable String id) {
+    public ResponseEntity<Surprise> unlockSurprise(@PathVariable String id,
+                                                   @RequestHeader(value = "Firebase-UID", required = false) String firebaseUid) {
         try {
-            Surprise surprise = surpriseService.unlockSurprise(id);
+            String unlockedBy = firebaseUid == null ? null
+                : userService.findByFirebaseUid(firebaseUid).map(User::getId).orElse(null);
+            Surprise surprise = surpriseService.unlockSurprise(id, unlockedBy);
             return ResponseEntity.ok(surprise);
         } catch (RuntimeException e) {
             log.error("Failed to unlock surprise: {}", e.getMessage());
@@ -1,19 +1,27 @@
 package com.whispersofus.controller;
 
+import com.whispersofus.config.StompPrincipal;
+import com.whispersofus.dto.ReadReceiptRequest;
 import com.whispersofus.dto.WebSocketChatMessage;
 import com.whispersofus.model.ChatMessage;
 import com.whispersofus.model.MessageType;
 import com.whispersofus.model.User;
 import com.whispersofus.service.ChatMessageService;
+import com.whispersofus.service.CoupleMessagingService;
+import com.whispersofus.service.PartnerResolver;
+import com.whispersofus.service.ReadReceiptCoalescer;
+import com.whispersofus.service.TypingIndicatorCoalescer;
 import com.whispersofus.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Slice;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -22,144 +30,171 @@ import java.util.Optional;
 @Slf4j
 public class WebSocketChatController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    // Upper bound of messages replayed on reconnect; beyond that the client refetches history
+    private static final int MAX_SYNC_MESSAGES = 200;
+
+    private final CoupleMessagingService coupleMessagingService;
     private final ChatMessageService chatMessageService;
     private final UserService userService;
+    private final PartnerResolver partnerResolver;
+    private final TypingIndicatorCoalescer typingIndicatorCoalescer;
+    private final ReadReceiptCoalescer readReceiptCoalescer;
 
     @MessageMapping("/chat.sendMessage")
-    @SendTo("/topic/public")
-    public WebSocketChatMessage sendMessage(@Payload WebSocketChatMessage chatMessage) {
+    public void sendMessage(@Payload WebSocketChatMessage chatMessage, Principal principal) {
         try {
             log.info("Received WebSocket message from {}: {}", chatMessage.getSenderId(), chatMessage.getContent());
-            
+
             // Get sender information
-            Optional<User> senderOpt = userService.findByFirebaseUid(chatMessage.getSenderId());
+            Optional<User> senderOpt = resolveSender(chatMessage, principal);
             if (senderOpt.isEmpty()) {
                 log.warn("Sender not found: {}", chatMessage.getSenderId());
-                return chatMessage;
+                return;
             }
-            
+
             User sender = senderOpt.get();
             chatMessage.setSenderName(sender.getName());
             chatMessage.setTimestamp(LocalDateTime.now());
-            
+
             // IMPORTANT: Update senderId to use database ID instead of Firebase UID
             // This ensures frontend can properly align messages sent vs received
             chatMessage.setSenderId(sender.getId());
-            
-            // Save message to database
+
+            // Chat is couple-scoped: the receiver is always the sender's partner
+            String receiverId = findPartnerUserId(sender.getId());
+            if (receiverId == null) {
+                log.warn("No partner found for user: {}", sender.getId());
+                return;
+            }
+            if (chatMessage.getReceiverId() != null && !chatMessage.getReceiverId().equals(receiverId)) {
+                log.warn("Rejected frame from {} addressed to {}, who is not their partner",
+                    sender.getId(), chatMessage.getReceiverId());
+                return;
+            }
+            chatMessage.setReceiverId(receiverId);
+
+            // Persist asynchronously; the id is assigned up front so the frame can go out now
             if (chatMessage.getType() == WebSocketChatMessage.Type.CHAT) {
-                // Find receiver (for private chat, find the partner)
-                String receiverId = chatMessage.getReceiverId();
-                if (receiverId == null) {
-                    // Auto-find partner for private chat
-                    receiverId = findPartnerUserId(sender.getId());
-                }
-                
-                if (receiverId != null) {
-                    ChatMessage savedMessage = chatMessageService.sendMessage(
-                        sender.getId(),
-                        receiverId,
-                        chatMessage.getContent(),
-                        MessageType.valueOf(chatMessage.getMessageType().toUpperCase())
-                    );
-                    chatMessage.setId(savedMessage.getId());
-                    chatMessage.setReceiverId(receiverId);
-                    
-                    log.info("Message saved to database with ID: {}", savedMessage.getId());
-                }
+                ChatMessage queuedMessage = chatMessageService.queueMessage(
+                    sender.getId(),
+                    receiverId,
+                    chatMessage.getContent(),
+                    MessageType.valueOf(chatMessage.getMessageType().toUpperCase())
+                );
+                chatMessage.setId(queuedMessage.getId());
+
+                log.info("Message queued for persistence with ID: {}", queuedMessage.getId());
             }
-            
-            return chatMessage;
-            
+
+            coupleMessagingService.sendToCouple(sender.getId(), receiverId, chatMessage);
+
         } catch (Exception e) {
             log.error("Error processing WebSocket message: {}", e.getMessage(), e);
-            return chatMessage;
         }
     }
 
     @MessageMapping("/chat.addUser")
-    @SendTo("/topic/public")
-    public WebSocketChatMessage addUser(@Payload WebSocketChatMessage chatMessage) {
+    public void addUser(@Payload WebSocketChatMessage chatMessage, Principal principal,
+                        SimpMessageHeaderAccessor headerAccessor) {
         try {
             log.info("User joined chat: {}", chatMessage.getSenderId());
-            
+
             // Get user information
-            Optional<User> userOpt = userService.findByFirebaseUid(chatMessage.getSenderId());
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                chatMessage.setSenderName(user.getName());
-                // Update senderId to use database ID for consistency
-                chatMessage.setSenderId(user.getId());
+            Optional<User> userOpt = resolveSender(chatMessage, principal);
+            if (userOpt.isEmpty()) {
+                log.warn("Joining user not found: {}", chatMessage.getSenderId());
+                return;
             }
-            
+
+            User user = userOpt.get();
+            chatMessage.setSenderName(user.getName());
+            // Update senderId to use database ID for consistency
+            chatMessage.setSenderId(user.getId());
             chatMessage.setType(WebSocketChatMessage.Type.JOIN);
             chatMessage.setTimestamp(LocalDateTime.now());
             chatMessage.setContent(chatMessage.getSenderName() + " joined the chat");
-            
-            return chatMessage;
-            
+
+            String lastSeenMessageId = chatMessage.getLastSeenMessageId();
+            chatMessage.setLastSeenMessageId(null);
+
+            String partnerId = findPartnerUserId(user.getId());
+            coupleMessagingService.sendToPartner(partnerId, chatMessage);
+
+            // Reconnect handshake: replay what this session missed in a single frame
+            if (partnerId != null && lastSeenMessageId != null && ObjectId.isValid(lastSeenMessageId)) {
+                replayMissedMessages(user.getId(), partnerId, lastSeenMessageId, headerAccessor.getSessionId());
+            }
+
         } catch (Exception e) {
             log.error("Error adding user to chat: {}", e.getMessage(), e);
-            return chatMessage;
         }
     }
 
+    private void replayMissedMessages(String userId, String partnerId, String lastSeenMessageId, String sessionId) {
+        Slice<ChatMessage> missed = chatMessageService.getMessagesAfter(userId, partnerId, lastSeenMessageId, MAX_SYNC_MESSAGES);
+
+        WebSocketChatMessage sync = new WebSocketChatMessage();
+        sync.setType(WebSocketChatMessage.Type.SYNC);
+        sync.setReceiverId(userId);
+        sync.setTimestamp(LocalDateTime.now());
+        sync.setMessages(missed.getContent().stream().map(this::toFrame).toList());
+        sync.setHasMore(missed.hasNext());
+
+        coupleMessagingService.sendToSession(userId, sessionId, CoupleMessagingService.MESSAGES_DESTINATION, sync);
+        log.info("Replayed {} missed messages to user {} (hasMore={})", missed.getNumberOfElements(), userId, missed.hasNext());
+    }
+
+    private WebSocketChatMessage toFrame(ChatMessage message) {
+        WebSocketChatMessage frame = new WebSocketChatMessage();
+        frame.setId(message.getId());
+        frame.setSenderId(message.getSenderId());
+        frame.setReceiverId(message.getReceiverId());
+        frame.setContent(message.getContent());
+        frame.setMessageType(message.getMessageType().name());
+        frame.setTimestamp(message.getCreatedAt());
+        frame.setType(WebSocketChatMessage.Type.CHAT);
+        return frame;
+    }
+
+    // Typing events are handled from the session principal alone: no database access
+    // and no payload parsing. Sessions without a bound user cannot signal typing.
     @MessageMapping("/chat.typing")
-    public void handleTyping(@Payload WebSocketChatMessage chatMessage) {
-        try {
-            log.debug("User typing: {}", chatMessage.getSenderId());
-            
-            // Convert Firebase UID to database user ID for consistency
-            Optional<User> userOpt = userService.findByFirebaseUid(chatMessage.getSenderId());
-            if (userOpt.isPresent()) {
-                chatMessage.setSenderId(userOpt.get().getId());
-            }
-            
-            chatMessage.setType(WebSocketChatMessage.Type.TYPING);
-            chatMessage.setTimestamp(LocalDateTime.now());
-            
-            // Send typing indicator to all users except sender
-            messagingTemplate.convertAndSend("/topic/public", chatMessage);
-            
-        } catch (Exception e) {
-            log.error("Error handling typing indicator: {}", e.getMessage(), e);
+    public void handleTyping(Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) {
+            typingIndicatorCoalescer.typing(stompPrincipal.getUserId());
         }
     }
 
     @MessageMapping("/chat.stopTyping")
-    public void handleStopTyping(@Payload WebSocketChatMessage chatMessage) {
-        try {
-            log.debug("User stopped typing: {}", chatMessage.getSenderId());
-            
-            // Convert Firebase UID to database user ID for consistency
-            Optional<User> userOpt = userService.findByFirebaseUid(chatMessage.getSenderId());
-            if (userOpt.isPresent()) {
-                chatMessage.setSenderId(userOpt.get().getId());
-            }
-            
-            chatMessage.setType(WebSocketChatMessage.Type.STOP_TYPING);
-            chatMessage.setTimestamp(LocalDateTime.now());
-            
-            // Send stop typing indicator to all users except sender
-            messagingTemplate.convertAndSend("/topic/public", chatMessage);
-            
-        } catch (Exception e) {
-            log.error("Error handling stop typing indicator: {}", e.getMessage(), e);
+    public void handleStopTyping(Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) {
+            typingIndicatorCoalescer.stoppedTyping(stompPrincipal.getUserId());
+        }
+    }
+
+    // Read receipts are coalesced per reader and flushed as one "read up to" write and push
+    @MessageMapping("/chat.read")
+    public void handleRead(@Payload ReadReceiptRequest receipt, Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) {
+            readReceiptCoalescer.read(stompPrincipal.getUserId(), receipt.getMessageId());
+        }
+    }
+
+    // Prefer the user bound to the session on CONNECT, fall back to the Firebase UID in the payload
+    private Optional<User> resolveSender(WebSocketChatMessage chatMessage, Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) {
+            return userService.findById(stompPrincipal.getUserId());
         }
+        return userService.findByFirebaseUid(chatMessage.getSenderId());
     }
 
     // Private method to find partner user ID
     private String findPartnerUserId(String currentUserId) {
         try {
-            return userService.findAllUsers().stream()
-                .filter(user -> !user.getId().equals(currentUserId))
-                .findFirst()
-                .map(User::getId)
-                .orElse(null);
+            return partnerResolver.findPartnerId(currentUserId).orElse(null);
         } catch (Exception e) {
             log.error("Error finding partner user: {}", e.getMessage(), e);
             return null;
         }
     }
-} 
\ No newline at end of file
+}
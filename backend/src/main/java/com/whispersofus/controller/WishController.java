@@ -2,9 +2,11 @@ package com.whispersofus.controller;
 
 import com.whispersofus.dto.WishRequest;
 import com.whispersofus.dto.WishStatusUpdateRequest;
+import com.whispersofus.model.User;
 import com.whispersofus.model.Wish;
 import com.whispersofus.model.WishCategory;
 import com.whispersofus.model.WishStatus;
+import com.whispersofus.service.UserService;
 import com.whispersofus.service.WishService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,14 +28,17 @@ import java.util.Map;
 public class WishController {
     
     private final WishService wishService;
+    private final UserService userService;
     
     @PostMapping
-    public ResponseEntity<Wish> createWish(@Valid @RequestBody WishRequest request) {
+    public ResponseEntity<Wish> createWish(@Valid @RequestBody WishRequest request,
+                                           @RequestHeader(value = "Firebase-UID", required = false) String firebaseUid) {
         Wish wish = wishService.createWish(
             request.getTitle(),
             request.getDescription(),
             request.getPhotoUrl(),
-            request.getCategory()
+            request.getCategory(),
+            resolveUserId(firebaseUid)
         );
         
         return ResponseEntity.ok(wish);
@@ -79,12 +84,14 @@ public class WishController {
     @PutMapping("/{id}/status")
     public ResponseEntity<Wish> updateWishStatus(
             @PathVariable String id, 
-            @Valid @RequestBody WishStatusUpdateRequest request) {
+            @Valid @RequestBody WishStatusUpdateRequest request,
+            @RequestHeader(value = "Firebase-UID", required = false) String firebaseUid) {
         try {
             Wish wish = wishService.updateWishStatus(
                 id, 
                 request.getStatus(), 
-                request.getFulfillmentNote()
+                request.getFulfillmentNote(),
+                resolveUserId(firebaseUid)
             );
             return ResponseEntity.ok(wish);
         } catch (RuntimeException e) {
@@ -126,6 +133,14 @@ public class WishController {
         return ResponseEntity.ok(stats);
     }
     
+    // The caller is optional here; without it the partner is simply not notified
+    private String resolveUserId(String firebaseUid) {
+        if (firebaseUid == null) {
+            return null;
+        }
+        return userService.findByFirebaseUid(firebaseUid).map(User::getId).orElse(null);
+    }
+    
     // Inner class for stats response
     public static class WishStats {
         private long totalWishes;
@@ -0,0 +1,22 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationSummaryResponse {
+    private String conversationId;
+    private String partnerId;
+    private String lastMessageId;
+    private String lastSenderId;
+    private String lastMessageSnippet;
+    private String lastMessageType;
+    private LocalDateTime lastMessageAt;
+    // Messages addressed to the requesting user that they have not read yet
+    private long unreadCount;
+}
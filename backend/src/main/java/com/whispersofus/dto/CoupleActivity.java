@@ -0,0 +1,21 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to a user on /queue/events when their partner created or changed a love note, wish or surprise
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CoupleActivity {
+
+    private String type;
+    private String actorId;
+    private Object data;
+    private LocalDateTime occurredAt;
+}
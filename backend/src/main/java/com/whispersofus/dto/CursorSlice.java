@@ -0,0 +1,20 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated list
+ * nextCursor is null when there is nothing further to load
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorSlice<T> {
+    private List<T> content;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmotionRollupResponse {
+    // Calendar month as yyyy-MM
+    private String month;
+    // Notes per emotion tag; every tag is present, zero if unused
+    private Map<String, Long> counts;
+    private long total;
+}
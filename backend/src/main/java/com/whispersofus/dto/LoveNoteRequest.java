@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.time.OffsetDateTime;
+
 @Data
 public class LoveNoteRequest {
     
@@ -13,4 +15,7 @@ public class LoveNoteRequest {
     
     @Size(max = 50, message = "Emotion tag cannot exceed 50 characters")
     private String emotionTag;
+    
+    // Optional "open when" time as ISO-8601 with an offset; delivered right away when missing or past
+    private OffsetDateTime deliverAt;
 } 
\ No newline at end of file
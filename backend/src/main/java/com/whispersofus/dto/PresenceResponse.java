@@ -0,0 +1,18 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PresenceResponse {
+    private String userId;
+    private boolean online;
+    private int sessions;
+    // Latest heartbeat while online, time the last session ended while offline
+    private LocalDateTime lastSeenAt;
+}
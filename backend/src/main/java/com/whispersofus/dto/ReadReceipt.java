@@ -0,0 +1,21 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to a sender on /queue/receipts: their partner has read everything up to a message
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadReceipt {
+    private String readerId;
+    private String upToMessageId;
+    // Messages created at or before this time are read
+    private LocalDateTime upTo;
+    private long readCount;
+}
@@ -0,0 +1,15 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sent by a client on /app/chat.read: the newest message it has displayed
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadReceiptRequest {
+    private String messageId;
+}
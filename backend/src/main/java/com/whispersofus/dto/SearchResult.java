@@ -0,0 +1,25 @@
+package com.whispersofus.dto;
+
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.LoveNote;
+import com.whispersofus.service.SearchIndex;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single search hit; exactly one of message and loveNote is set, depending on type
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    private SearchIndex.DocumentType type;
+    private String id;
+    private double score;
+    private LocalDateTime createdAt;
+    private ChatMessage message;
+    private LoveNote loveNote;
+}
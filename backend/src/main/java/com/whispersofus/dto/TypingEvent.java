@@ -0,0 +1,17 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight typing indicator frame
+ * Carries only what the client needs, using the same field names as WebSocketChatMessage
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TypingEvent {
+    private String senderId;
+    private WebSocketChatMessage.Type type;
+}
@@ -0,0 +1,14 @@
+package com.whispersofus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadBadgesResponse {
+    private long unreadMessages;
+    private long unreadLoveNotes;
+    private long total;
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -18,13 +19,21 @@ public class WebSocketChatMessage {
     private LocalDateTime timestamp;
     private String chatRoomId;
     
+    // Sent by the client on /app/chat.addUser: newest message it already has
+    private String lastSeenMessageId;
+    
+    // SYNC frames: messages missed while disconnected, oldest first
+    private List<WebSocketChatMessage> messages;
+    private Boolean hasMore;
+    
     // Message types for WebSocket
     public enum Type {
         CHAT,
         JOIN,
         LEAVE,
         TYPING,
-        STOP_TYPING
+        STOP_TYPING,
+        SYNC
     }
     
     private Type type = Type.CHAT;
@@ -0,0 +1,57 @@
+package com.whispersofus.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a love note, wish or surprise was saved, for the partner to be told in real time
+ */
+public class CoupleActivityEvent {
+
+    public enum Type {
+        LOVE_NOTE_RECEIVED,
+        WISH_CREATED,
+        WISH_STATUS_CHANGED,
+        SURPRISE_CREATED,
+        SURPRISE_UNLOCKED
+    }
+
+    private final Type type;
+    private final String actorId;
+    private final String recipientId;
+    private final Object payload;
+    private final LocalDateTime occurredAt;
+
+    /**
+     * @param type What happened
+     * @param actorId The user who caused it, or null if unknown
+     * @param recipientId The user to notify, or null for the actor's partner
+     * @param payload The saved document
+     */
+    public CoupleActivityEvent(Type type, String actorId, String recipientId, Object payload) {
+        this.type = type;
+        this.actorId = actorId;
+        this.recipientId = recipientId;
+        this.payload = payload;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getActorId() {
+        return actorId;
+    }
+
+    public String getRecipientId() {
+        return recipientId;
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
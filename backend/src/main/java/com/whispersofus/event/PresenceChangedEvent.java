@@ -0,0 +1,31 @@
+package com.whispersofus.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a user's first session connects or their last session goes away
+ */
+public class PresenceChangedEvent {
+
+    private final String userId;
+    private final boolean online;
+    private final LocalDateTime changedAt;
+
+    public PresenceChangedEvent(String userId, boolean online, LocalDateTime changedAt) {
+        this.userId = userId;
+        this.online = online;
+        this.changedAt = changedAt;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.whispersofus.event;
+
+/**
+ * Published when a STOMP frame of a user is dropped by the rate limiter
+ */
+public class RateLimitedEvent {
+
+    private final String userId;
+    private final String destination;
+    private final long retryAfterMillis;
+
+    public RateLimitedEvent(String userId, String destination, long retryAfterMillis) {
+        this.userId = userId;
+        this.destination = destination;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
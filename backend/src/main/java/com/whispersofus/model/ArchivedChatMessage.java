@@ -0,0 +1,135 @@
+package com.whispersofus.model;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+
+/**
+ * Chat message as stored inside a ChatMessageBucket
+ * Only read messages are archived, so the read flag and conversation key are implied
+ * by the bucket and not repeated per message
+ */
+public class ArchivedChatMessage {
+    @Field("message_id")
+    private String messageId;
+    
+    @Field("sender_id")
+    private String senderId;
+    
+    @Field("receiver_id")
+    private String receiverId;
+    
+    private String content;
+    
+    @Field("message_type")
+    private MessageType messageType;
+    
+    @Field("read_at")
+    private LocalDateTime readAt;
+    
+    @Field("created_at")
+    private LocalDateTime createdAt;
+    
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ArchivedChatMessage() {}
+    
+    public static ArchivedChatMessage from(ChatMessage message) {
+        ArchivedChatMessage archived = new ArchivedChatMessage();
+        archived.messageId = message.getId();
+        archived.senderId = message.getSenderId();
+        archived.receiverId = message.getReceiverId();
+        archived.content = message.getContent();
+        archived.messageType = message.getMessageType();
+        archived.readAt = message.getReadAt();
+        archived.createdAt = message.getCreatedAt();
+        archived.updatedAt = message.getUpdatedAt();
+        return archived;
+    }
+    
+    /**
+     * Restore the message in the shape of the hot collection
+     * @param conversationId The conversation key of the bucket holding this message
+     * @return The equivalent ChatMessage
+     */
+    public ChatMessage toChatMessage(String conversationId) {
+        ChatMessage message = new ChatMessage();
+        message.setId(messageId);
+        message.setConversationId(conversationId);
+        message.setSenderId(senderId);
+        message.setReceiverId(receiverId);
+        message.setContent(content);
+        message.setMessageType(messageType);
+        message.setRead(true);
+        message.setReadAt(readAt);
+        message.setCreatedAt(createdAt);
+        message.setUpdatedAt(updatedAt);
+        return message;
+    }
+    
+    // Getters and Setters
+    public String getMessageId() {
+        return messageId;
+    }
+    
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+    
+    public String getSenderId() {
+        return senderId;
+    }
+    
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
+    
+    public String getReceiverId() {
+        return receiverId;
+    }
+    
+    public void setReceiverId(String receiverId) {
+        this.receiverId = receiverId;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public MessageType getMessageType() {
+        return messageType;
+    }
+    
+    public void setMessageType(MessageType messageType) {
+        this.messageType = messageType;
+    }
+    
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+    
+    public void setReadAt(LocalDateTime readAt) {
+        this.readAt = readAt;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,15 +1,25 @@
 package com.whispersofus.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDateTime;
 
 @Document(collection = "chat_messages")
+@CompoundIndexes({
+    @CompoundIndex(name = "conversation_created_idx", def = "{'conversation_id': 1, 'created_at': -1, '_id': -1}"),
+    @CompoundIndex(name = "receiver_unread_idx", def = "{'receiver_id': 1, 'is_read': 1, 'created_at': -1}")
+})
 public class ChatMessage {
     @Id
     private String id;
     
+    @Field("conversation_id")
+    private String conversationId;
+    
     @Field("sender_id")
     private String senderId;
     
@@ -27,6 +37,8 @@ public class ChatMessage {
     @Field("read_at")
     private LocalDateTime readAt;
     
+    // Lets the search index replay documents created since its snapshot without a collection scan
+    @Indexed(name = "created_idx")
     @Field("created_at")
     private LocalDateTime createdAt;
     
@@ -44,6 +56,21 @@ public class ChatMessage {
         this.senderId = senderId;
         this.receiverId = receiverId;
         this.content = content;
+        this.conversationId = conversationIdOf(senderId, receiverId);
+    }
+    
+    /**
+     * Normalized key of the conversation between two users
+     * The pair is sorted so both directions of a conversation share the same key
+     * @param userId1 The ID of one participant
+     * @param userId2 The ID of the other participant
+     * @return The conversation key, or null if either ID is missing
+     */
+    public static String conversationIdOf(String userId1, String userId2) {
+        if (userId1 == null || userId2 == null) {
+            return null;
+        }
+        return userId1.compareTo(userId2) <= 0 ? userId1 + "_" + userId2 : userId2 + "_" + userId1;
     }
     
     // Getters and Setters
@@ -55,6 +82,14 @@ public class ChatMessage {
         this.id = id;
     }
     
+    public String getConversationId() {
+        return conversationId;
+    }
+    
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+    
     public String getSenderId() {
         return senderId;
     }
@@ -0,0 +1,121 @@
+package com.whispersofus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archived run of consecutive read messages of one conversation, oldest first
+ * One bucket replaces a few hundred chat_messages documents and their index entries.
+ * The id is derived from the conversation and the first message, so archiving the
+ * same run twice collides instead of duplicating it.
+ */
+@Document(collection = "chat_message_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "conversation_last_created_idx", def = "{'conversation_id': 1, 'last_created_at': -1}"),
+    @CompoundIndex(name = "conversation_first_created_idx", def = "{'conversation_id': 1, 'first_created_at': 1}"),
+    @CompoundIndex(name = "time_range_idx", def = "{'last_created_at': 1, 'first_created_at': 1}")
+})
+public class ChatMessageBucket {
+    @Id
+    private String id;
+    
+    @Field("conversation_id")
+    private String conversationId;
+    
+    @Field("first_created_at")
+    private LocalDateTime firstCreatedAt;
+    
+    @Field("last_created_at")
+    private LocalDateTime lastCreatedAt;
+    
+    private int count;
+    
+    private List<ArchivedChatMessage> messages;
+    
+    @Field("archived_at")
+    private LocalDateTime archivedAt;
+    
+    // Constructors
+    public ChatMessageBucket() {
+        this.archivedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Build a bucket from messages of one conversation
+     * @param conversationId The conversation key
+     * @param messages Messages sorted by (createdAt, id) ascending, at least one
+     * @return The bucket
+     */
+    public static ChatMessageBucket of(String conversationId, List<ChatMessage> messages) {
+        ChatMessageBucket bucket = new ChatMessageBucket();
+        bucket.id = conversationId + ":" + messages.get(0).getId();
+        bucket.conversationId = conversationId;
+        bucket.firstCreatedAt = messages.get(0).getCreatedAt();
+        bucket.lastCreatedAt = messages.get(messages.size() - 1).getCreatedAt();
+        bucket.count = messages.size();
+        bucket.messages = messages.stream().map(ArchivedChatMessage::from).toList();
+        return bucket;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getConversationId() {
+        return conversationId;
+    }
+    
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+    
+    public LocalDateTime getFirstCreatedAt() {
+        return firstCreatedAt;
+    }
+    
+    public void setFirstCreatedAt(LocalDateTime firstCreatedAt) {
+        this.firstCreatedAt = firstCreatedAt;
+    }
+    
+    public LocalDateTime getLastCreatedAt() {
+        return lastCreatedAt;
+    }
+    
+    public void setLastCreatedAt(LocalDateTime lastCreatedAt) {
+        this.lastCreatedAt = lastCreatedAt;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public void setCount(int count) {
+        this.count = count;
+    }
+    
+    public List<ArchivedChatMessage> getMessages() {
+        return messages;
+    }
+    
+    public void setMessages(List<ArchivedChatMessage> messages) {
+        this.messages = messages;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
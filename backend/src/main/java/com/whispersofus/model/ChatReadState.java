@@ -0,0 +1,96 @@
+package com.whispersofus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+
+/**
+ * Read watermark of one participant in a conversation
+ * Everything in the conversation addressed to the user and created at or before
+ * lastReadAt has been read, so marking a conversation read is a single write
+ */
+@Document(collection = "chat_read_states")
+public class ChatReadState {
+    @Id
+    private String id;
+    
+    @Field("conversation_id")
+    private String conversationId;
+    
+    @Field("user_id")
+    private String userId;
+    
+    @Field("last_read_at")
+    private LocalDateTime lastReadAt;
+    
+    @Field("last_read_message_id")
+    private String lastReadMessageId;
+    
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ChatReadState() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Key of the watermark document for a reader in a conversation
+     * @param conversationId The conversation key
+     * @param userId The ID of the reading user
+     * @return The document ID
+     */
+    public static String idOf(String conversationId, String userId) {
+        return conversationId + ":" + userId;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getConversationId() {
+        return conversationId;
+    }
+    
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public LocalDateTime getLastReadAt() {
+        return lastReadAt;
+    }
+    
+    public void setLastReadAt(LocalDateTime lastReadAt) {
+        this.lastReadAt = lastReadAt;
+    }
+    
+    public String getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+    
+    public void setLastReadMessageId(String lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
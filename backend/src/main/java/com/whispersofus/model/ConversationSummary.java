@@ -0,0 +1,164 @@
+package com.whispersofus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized view of a conversation for the latest-message and inbox views
+ * Keyed by conversation ID and upserted on every send, so reading the newest message
+ * or a user's unread count in a conversation is a single point read
+ */
+@Document(collection = "conversation_summaries")
+@CompoundIndexes({
+    @CompoundIndex(name = "participant_last_message_idx", def = "{'participant_ids': 1, 'last_message_at': -1}")
+})
+public class ConversationSummary {
+    @Id
+    private String id;
+    
+    @Field("participant_ids")
+    private List<String> participantIds = new ArrayList<>();
+    
+    @Indexed(name = "last_message_idx", sparse = true)
+    @Field("last_message_id")
+    private String lastMessageId;
+    
+    @Field("last_sender_id")
+    private String lastSenderId;
+    
+    @Field("last_receiver_id")
+    private String lastReceiverId;
+    
+    @Field("last_message_snippet")
+    private String lastMessageSnippet;
+    
+    @Field("last_message_type")
+    private MessageType lastMessageType;
+    
+    @Field("last_message_at")
+    private LocalDateTime lastMessageAt;
+    
+    // Unread messages per participant, keyed by user ID
+    @Field("unread_counts")
+    private Map<String, Long> unreadCounts = new HashMap<>();
+    
+    // Messages moved to chat_message_buckets; null for summaries that predate the field
+    @Field("archived_count")
+    private Long archivedCount;
+    
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ConversationSummary() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Unread messages of one participant
+     * @param userId The ID of the participant
+     * @return The number of unread messages addressed to the participant
+     */
+    public long unreadCountOf(String userId) {
+        Long count = unreadCounts != null ? unreadCounts.get(userId) : null;
+        return count != null ? Math.max(count, 0) : 0;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public List<String> getParticipantIds() {
+        return participantIds;
+    }
+    
+    public void setParticipantIds(List<String> participantIds) {
+        this.participantIds = participantIds;
+    }
+    
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+    
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+    
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+    
+    public void setLastSenderId(String lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+    
+    public String getLastReceiverId() {
+        return lastReceiverId;
+    }
+    
+    public void setLastReceiverId(String lastReceiverId) {
+        this.lastReceiverId = lastReceiverId;
+    }
+    
+    public String getLastMessageSnippet() {
+        return lastMessageSnippet;
+    }
+    
+    public void setLastMessageSnippet(String lastMessageSnippet) {
+        this.lastMessageSnippet = lastMessageSnippet;
+    }
+    
+    public MessageType getLastMessageType() {
+        return lastMessageType;
+    }
+    
+    public void setLastMessageType(MessageType lastMessageType) {
+        this.lastMessageType = lastMessageType;
+    }
+    
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+    
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+    
+    public Map<String, Long> getUnreadCounts() {
+        return unreadCounts;
+    }
+    
+    public void setUnreadCounts(Map<String, Long> unreadCounts) {
+        this.unreadCounts = unreadCounts;
+    }
+    
+    public Long getArchivedCount() {
+        return archivedCount;
+    }
+    
+    public void setArchivedCount(Long archivedCount) {
+        this.archivedCount = archivedCount;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,111 @@
+package com.whispersofus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Love note counts of one couple in one calendar month, per emotion tag
+ * Maintained with $inc as notes are created and deleted, so a mood-over-time view
+ * reads a handful of these documents instead of scanning love_notes
+ */
+@Document(collection = "love_note_emotion_rollups")
+@CompoundIndexes({
+    @CompoundIndex(name = "couple_month_idx", def = "{'couple_id': 1, 'month': 1}")
+})
+public class EmotionRollup {
+    @Id
+    private String id;
+    
+    @Field("couple_id")
+    private String coupleId;
+    
+    // Calendar month as yyyy-MM, so it sorts and ranges as a string
+    private String month;
+    
+    // Notes per EmotionTag name
+    private Map<String, Long> counts = new HashMap<>();
+    
+    // All notes of the month, including untagged ones
+    private long total;
+    
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public EmotionRollup() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public EmotionRollup(String coupleId, YearMonth month) {
+        this();
+        this.id = idOf(coupleId, month);
+        this.coupleId = coupleId;
+        this.month = month.toString();
+    }
+    
+    /**
+     * Key of the rollup document of a couple and month
+     * @param coupleId The couple key, see LoveNote.coupleId
+     * @param month The calendar month
+     * @return The document ID
+     */
+    public static String idOf(String coupleId, YearMonth month) {
+        return coupleId + ":" + month;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getCoupleId() {
+        return coupleId;
+    }
+    
+    public void setCoupleId(String coupleId) {
+        this.coupleId = coupleId;
+    }
+    
+    public String getMonth() {
+        return month;
+    }
+    
+    public void setMonth(String month) {
+        this.month = month;
+    }
+    
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+    
+    public void setCounts(Map<String, Long> counts) {
+        this.counts = counts;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
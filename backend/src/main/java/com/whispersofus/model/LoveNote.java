@@ -1,15 +1,29 @@
 package com.whispersofus.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Document(collection = "love_notes")
+@CompoundIndexes({
+    @CompoundIndex(name = "couple_created_idx", def = "{'couple_id': 1, 'created_at': -1, '_id': -1}"),
+    @CompoundIndex(name = "receiver_unread_idx", def = "{'receiver_id': 1, 'is_read': 1, 'created_at': -1}"),
+    @CompoundIndex(name = "receiver_created_idx", def = "{'receiver_id': 1, 'created_at': -1}"),
+    @CompoundIndex(name = "sender_created_idx", def = "{'sender_id': 1, 'created_at': -1}")
+})
 public class LoveNote {
     @Id
     private String id;
     
+    // Normalized sender/receiver pair, see ChatMessage.conversationIdOf
+    @Field("couple_id")
+    private String coupleId;
+    
     @Field("sender_id")
     private String senderId;
     
@@ -27,12 +41,22 @@ public class LoveNote {
     @Field("is_read")
     private boolean isRead = false;
     
+    // Lets the search index replay documents created since its snapshot without a collection scan
+    @Indexed(name = "created_idx")
     @Field("created_at")
     private LocalDateTime createdAt;
     
     @Field("read_at")
     private LocalDateTime readAt;
     
+    // Set only on scheduled notes, as a UTC instant; they stay hidden from the receiver until delivered
+    @Indexed(name = "scheduled_delivery_idx", sparse = true)
+    @Field("deliver_at")
+    private Instant deliverAt;
+    
+    @Field("delivered_at")
+    private LocalDateTime deliveredAt;
+    
     // Constructors
     public LoveNote() {
         this.createdAt = LocalDateTime.now();
@@ -44,6 +68,7 @@ public class LoveNote {
         this.receiverId = receiverId;
         this.content = content;
         this.emotionTag = emotionTag;
+        this.coupleId = ChatMessage.conversationIdOf(senderId, receiverId);
     }
     
     // Getters and Setters
@@ -55,6 +80,14 @@ public class LoveNote {
         this.id = id;
     }
     
+    public String getCoupleId() {
+        return coupleId;
+    }
+    
+    public void setCoupleId(String coupleId) {
+        this.coupleId = coupleId;
+    }
+    
     public String getSenderId() {
         return senderId;
     }
@@ -121,4 +154,28 @@ public class LoveNote {
     public void setReadAt(LocalDateTime readAt) {
         this.readAt = readAt;
     }
+    
+    public Instant getDeliverAt() {
+        return deliverAt;
+    }
+    
+    public void setDeliverAt(Instant deliverAt) {
+        this.deliverAt = deliverAt;
+    }
+    
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+    
+    public void setDeliveredAt(LocalDateTime deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+    
+    /**
+     * Whether the receiver can see the note
+     * @return True unless the note is scheduled and not yet delivered
+     */
+    public boolean isDelivered() {
+        return deliverAt == null || deliveredAt != null;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.whispersofus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized unread badge counts of a user
+ * Maintained incrementally with $inc as items are sent and read, keyed by user ID
+ */
+@Document(collection = "unread_counters")
+public class UnreadCounter {
+    @Id
+    private String id;
+    
+    @Field("chat_messages")
+    private long chatMessages;
+    
+    @Field("love_notes")
+    private long loveNotes;
+    
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UnreadCounter() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public UnreadCounter(String userId, long chatMessages, long loveNotes) {
+        this();
+        this.id = userId;
+        this.chatMessages = chatMessages;
+        this.loveNotes = loveNotes;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public long getChatMessages() {
+        return chatMessages;
+    }
+    
+    public void setChatMessages(long chatMessages) {
+        this.chatMessages = chatMessages;
+    }
+    
+    public long getLoveNotes() {
+        return loveNotes;
+    }
+    
+    public void setLoveNotes(long loveNotes) {
+        this.loveNotes = loveNotes;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -4,20 +4,19 @@ import com.whispersofus.model.ChatMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
     
-    // Find messages between two users
-    @Query("{ $or: [ " +
-           "{ 'senderId': ?0, 'receiverId': ?1 }, " +
-           "{ 'senderId': ?1, 'receiverId': ?0 } " +
-           "] }")
-    Page<ChatMessage> findMessagesBetweenUsers(String userId1, String userId2, Pageable pageable);
+    // Find messages of a conversation (see ChatMessage.conversationIdOf)
+    Page<ChatMessage> findByConversationId(String conversationId, Pageable pageable);
+    
+    // Count messages of a conversation
+    long countByConversationId(String conversationId);
     
     // Find unread messages for a user
     List<ChatMessage> findByReceiverIdAndIsReadFalseOrderByCreatedAtDesc(String receiverId);
@@ -25,14 +24,12 @@ public interface ChatMessageRepository extends MongoRepository<ChatMessage, Stri
     // Count unread messages for a user
     long countByReceiverIdAndIsReadFalse(String receiverId);
     
-    // Find latest message between two users
-    @Query(value = "{ $or: [ " +
-           "{ 'senderId': ?0, 'receiverId': ?1 }, " +
-           "{ 'senderId': ?1, 'receiverId': ?0 } " +
-           "] }", 
-           sort = "{ 'createdAt': -1 }")
-    List<ChatMessage> findLatestMessageBetweenUsers(String userId1, String userId2);
+    // Count unread messages addressed to one participant of a conversation
+    long countByConversationIdAndReceiverIdAndIsReadFalse(String conversationId, String receiverId);
+    
+    // Find latest message of a conversation
+    Optional<ChatMessage> findFirstByConversationIdOrderByCreatedAtDesc(String conversationId);
     
-    // Delete messages between users
-    void deleteBySenderIdAndReceiverId(String senderId, String receiverId);
-} 
\ No newline at end of file
+    // Delete all messages of a conversation
+    void deleteByConversationId(String conversationId);
+}
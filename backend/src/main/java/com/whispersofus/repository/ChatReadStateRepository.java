@@ -0,0 +1,9 @@
+package com.whispersofus.repository;
+
+import com.whispersofus.model.ChatReadState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatReadStateRepository extends MongoRepository<ChatReadState, String> {
+}
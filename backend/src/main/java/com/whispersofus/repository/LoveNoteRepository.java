@@ -12,16 +12,19 @@ import java.util.List;
 @Repository
 public interface LoveNoteRepository extends MongoRepository<LoveNote, String> {
     
-    // Find notes by receiver
+    // Find delivered notes by receiver (scheduled notes stay hidden until delivered)
+    @Query(value = "{ 'receiverId': ?0, $or: [ { 'deliverAt': null }, { 'deliveredAt': { $ne: null } } ] }", sort = "{ 'createdAt': -1 }")
     Page<LoveNote> findByReceiverIdOrderByCreatedAtDesc(String receiverId, Pageable pageable);
     
     // Find notes by sender
     Page<LoveNote> findBySenderIdOrderByCreatedAtDesc(String senderId, Pageable pageable);
     
-    // Find unread notes for a specific receiver
+    // Find delivered unread notes for a specific receiver
+    @Query(value = "{ 'receiverId': ?0, 'isRead': false, $or: [ { 'deliverAt': null }, { 'deliveredAt': { $ne: null } } ] }", sort = "{ 'createdAt': -1 }")
     List<LoveNote> findByReceiverIdAndIsReadFalseOrderByCreatedAtDesc(String receiverId);
     
-    // Count unread notes for a specific receiver
+    // Count delivered unread notes for a specific receiver
+    @Query(value = "{ 'receiverId': ?0, 'isRead': false, $or: [ { 'deliverAt': null }, { 'deliveredAt': { $ne: null } } ] }", count = true)
     long countByReceiverIdAndIsReadFalse(String receiverId);
     
     // Find notes between two users
@@ -0,0 +1,115 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ArchivedChatMessage;
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ChatMessageBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Background job that moves old read chat messages into ChatMessageBucket documents
+ * Each run rolls, per conversation, the oldest read messages older than the configured
+ * age into buckets of bucket-size messages; a remainder smaller than a bucket stays in
+ * chat_messages until later runs can fill a whole bucket. A bucket is written before its messages are
+ * deleted from chat_messages, and readers drop the duplicates in between, so a run can
+ * stop at any point and the next one picks up where it left off.
+ */
+@Component
+@Slf4j
+public class ChatArchiveCompactor {
+
+    private final MongoTemplate mongoTemplate;
+    private final ConversationSummaryService conversationSummaryService;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int bucketSize;
+
+    public ChatArchiveCompactor(MongoTemplate mongoTemplate,
+                                ConversationSummaryService conversationSummaryService,
+                                @Value("${app.chat.archive.enabled:true}") boolean enabled,
+                                @Value("${app.chat.archive.min-age:30d}") Duration minAge,
+                                @Value("${app.chat.archive.bucket-size:200}") int bucketSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.conversationSummaryService = conversationSummaryService;
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.bucketSize = bucketSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.chat.archive.initial-delay-ms:300000}",
+               fixedDelayString = "${app.chat.archive.interval-ms:3600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+            long archived = 0;
+            // Served by a distinct scan over conversation_created_idx
+            List<String> conversationIds = mongoTemplate.findDistinct(
+                new Query(), "conversationId", ChatMessage.class, String.class);
+            for (String conversationId : conversationIds) {
+                if (conversationId != null) {
+                    archived += compactConversation(conversationId, cutoff);
+                }
+            }
+            if (archived > 0) {
+                log.info("Archived {} chat messages older than {}", archived, cutoff);
+            }
+        } catch (Exception e) {
+            log.error("Chat archive compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private long compactConversation(String conversationId, LocalDateTime cutoff) {
+        Query query = new Query(Criteria.where("conversationId").is(conversationId)
+                .and("createdAt").lt(cutoff)
+                .and("isRead").is(true))
+            .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+            .limit(bucketSize);
+
+        long archived = 0;
+        List<ChatMessage> batch;
+        while ((batch = mongoTemplate.find(query, ChatMessage.class)).size() == bucketSize) {
+            ChatMessageBucket bucket = ChatMessageBucket.of(conversationId, batch);
+            List<String> archivedIds;
+            try {
+                mongoTemplate.insert(bucket);
+                archivedIds = batch.stream().map(ChatMessage::getId).toList();
+            } catch (DuplicateKeyException e) {
+                // An interrupted run already wrote this bucket; finish removing its messages
+                ChatMessageBucket existing = mongoTemplate.findById(bucket.getId(), ChatMessageBucket.class);
+                archivedIds = existing == null ? List.of() : existing.getMessages().stream()
+                    .map(ArchivedChatMessage::getMessageId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            }
+
+            long removed = mongoTemplate.remove(
+                Query.query(Criteria.where("id").in(archivedIds.stream().map(ObjectId::new).toList())),
+                ChatMessage.class
+            ).getDeletedCount();
+            archived += removed;
+            conversationSummaryService.messagesArchived(conversationId, removed);
+
+            if (removed == 0) {
+                break;
+            }
+        }
+        return archived;
+    }
+}
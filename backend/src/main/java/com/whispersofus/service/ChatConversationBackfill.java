@@ -0,0 +1,73 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ChatMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off migration that stores conversationId on chat messages written before it existed
+ * Runs in the background after startup and processes the collection in batches, so
+ * it can be interrupted at any point and simply resumes on the next start
+ */
+@Component
+@Slf4j
+public class ChatConversationBackfill {
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public ChatConversationBackfill(MongoTemplate mongoTemplate,
+                                    @Value("${app.chat.backfill.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::run, "chat-conversation-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        try {
+            long updated = backfill();
+            if (updated > 0) {
+                log.info("Backfilled conversationId on {} chat messages", updated);
+            }
+        } catch (Exception e) {
+            log.error("Chat conversation backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private long backfill() {
+        Query query = new Query(Criteria.where("conversationId").exists(false)).limit(batchSize);
+        query.fields().include("senderId").include("receiverId");
+
+        long updated = 0;
+        List<ChatMessage> batch;
+        while (!(batch = mongoTemplate.find(query, ChatMessage.class)).isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class);
+            for (ChatMessage message : batch) {
+                bulk.updateOne(
+                    Query.query(Criteria.where("id").is(message.getId())),
+                    Update.update("conversationId",
+                        ChatMessage.conversationIdOf(message.getSenderId(), message.getReceiverId()))
+                );
+            }
+            updated += bulk.execute().getModifiedCount();
+            log.debug("Backfilled conversationId on a batch of {} chat messages", batch.size());
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,272 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ChatMessageBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Read access to chat history compacted into chat_message_buckets
+ * Lookups walk the buckets of a conversation in time order and stop as soon as no
+ * further bucket can contribute to the requested window, so a page of old history
+ * costs one or two bucket reads instead of one index entry per message
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatMessageArchive {
+
+    public static final Comparator<ChatMessage> OLDEST_FIRST =
+        Comparator.comparing(ChatMessage::getCreatedAt).thenComparing(ChatMessage::getId);
+    public static final Comparator<ChatMessage> NEWEST_FIRST = OLDEST_FIRST.reversed();
+
+    // Tolerance between a message's ObjectId timestamp and its createdAt
+    private static final long ID_TIME_SLACK_SECONDS = 60;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Get archived messages of a conversation, newest first
+     * @param conversationId The conversation key
+     * @param createdAtOrBefore Only buckets starting at or before this time are read, or null for all
+     * @param filter Messages to keep
+     * @param limit Maximum number of messages to return
+     * @return Up to limit archived messages, newest first
+     */
+    public List<ChatMessage> findNewest(String conversationId, LocalDateTime createdAtOrBefore,
+                                        Predicate<ChatMessage> filter, int limit) {
+        return findNewest(conversationId, createdAtOrBefore, null, filter, limit);
+    }
+
+    /**
+     * Get archived messages of a conversation within a time range, newest first
+     * With a lower bound, a conversation whose buckets all end before it costs one index
+     * probe and no bucket read
+     * @param conversationId The conversation key
+     * @param createdAtOrBefore Only buckets starting at or before this time are read, or null for all
+     * @param createdAtOrAfter Only messages created at or after this time are returned, or null for all
+     * @param filter Messages to keep
+     * @param limit Maximum number of messages to return
+     * @return Up to limit archived messages, newest first
+     */
+    public List<ChatMessage> findNewest(String conversationId, LocalDateTime createdAtOrBefore,
+                                        LocalDateTime createdAtOrAfter, Predicate<ChatMessage> filter, int limit) {
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (createdAtOrBefore != null) {
+            criteria.and("firstCreatedAt").lte(createdAtOrBefore);
+        }
+        Predicate<ChatMessage> inRange = filter;
+        if (createdAtOrAfter != null) {
+            criteria.and("lastCreatedAt").gte(createdAtOrAfter);
+            inRange = filter.and(message -> !message.getCreatedAt().isBefore(createdAtOrAfter));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "lastCreatedAt"));
+        return collect(query, inRange, NEWEST_FIRST, limit,
+            (bucket, boundary) -> bucket.getLastCreatedAt().isBefore(boundary));
+    }
+
+    /**
+     * Get archived messages of a conversation, oldest first
+     * @param conversationId The conversation key
+     * @param createdAtOrAfter Only buckets ending at or after this time are read
+     * @param filter Messages to keep
+     * @param limit Maximum number of messages to return
+     * @return Up to limit archived messages, oldest first
+     */
+    public List<ChatMessage> findOldest(String conversationId, LocalDateTime createdAtOrAfter,
+                                        Predicate<ChatMessage> filter, int limit) {
+        Query query = new Query(Criteria.where("conversationId").is(conversationId)
+                .and("lastCreatedAt").gte(createdAtOrAfter))
+            .with(Sort.by(Sort.Direction.ASC, "firstCreatedAt"));
+        return collect(query, filter, OLDEST_FIRST, limit,
+            (bucket, boundary) -> bucket.getFirstCreatedAt().isAfter(boundary));
+    }
+
+    /**
+     * Get archived messages of a conversation by position, newest first
+     * Positions are summed from the bucket counts, so only the buckets holding the
+     * requested window are read in full
+     * @param conversationId The conversation key
+     * @param offset Number of archived messages to skip, newest first
+     * @param limit Maximum number of messages to return
+     * @return Up to limit archived messages, newest first
+     */
+    public List<ChatMessage> findAtOffset(String conversationId, long offset, int limit) {
+        Query positions = new Query(Criteria.where("conversationId").is(conversationId))
+            .with(Sort.by(Sort.Direction.DESC, "lastCreatedAt"));
+        positions.fields().include("id").include("count");
+
+        List<String> bucketIds = new ArrayList<>();
+        long skipped = 0;
+        long covered = 0;
+        try (Stream<ChatMessageBucket> buckets = mongoTemplate.stream(positions, ChatMessageBucket.class)) {
+            Iterator<ChatMessageBucket> iterator = buckets.iterator();
+            while (iterator.hasNext() && covered < offset - skipped + limit) {
+                ChatMessageBucket bucket = iterator.next();
+                if (bucketIds.isEmpty() && skipped + bucket.getCount() <= offset) {
+                    skipped += bucket.getCount();
+                    continue;
+                }
+                bucketIds.add(bucket.getId());
+                covered += bucket.getCount();
+            }
+        }
+        if (bucketIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<ChatMessage> window = new ArrayList<>();
+        for (ChatMessageBucket bucket : mongoTemplate.find(
+                Query.query(Criteria.where("id").in(bucketIds)), ChatMessageBucket.class)) {
+            bucket.getMessages().forEach(message -> window.add(message.toChatMessage(bucket.getConversationId())));
+        }
+        window.sort(NEWEST_FIRST);
+        return window.stream().skip(offset - skipped).limit(limit).toList();
+    }
+
+    /**
+     * Count the archived messages of a conversation
+     * @param conversationId The conversation key
+     * @return The number of archived messages
+     */
+    public long countMessages(String conversationId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("conversationId").is(conversationId)),
+            Aggregation.group().sum("count").as("total")
+        );
+        Document result = mongoTemplate.aggregate(aggregation, ChatMessageBucket.class, Document.class)
+            .getUniqueMappedResult();
+        return result != null ? ((Number) result.get("total")).longValue() : 0;
+    }
+
+    /**
+     * Look up a single archived message
+     * @param messageId The ID of the message
+     * @return Optional containing the message if it is archived
+     */
+    public Optional<ChatMessage> findMessage(String messageId) {
+        if (!ObjectId.isValid(messageId)) {
+            return Optional.empty();
+        }
+        Query query = Query.query(containing(messageId));
+        query.fields().include("conversationId").elemMatch("messages", Criteria.where("messageId").is(messageId));
+        ChatMessageBucket bucket = mongoTemplate.findOne(query, ChatMessageBucket.class);
+        if (bucket == null || bucket.getMessages() == null || bucket.getMessages().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(bucket.getMessages().get(0).toChatMessage(bucket.getConversationId()));
+    }
+
+    /**
+     * Remove a single archived message
+     * @param messageId The ID of the message
+     * @return The conversation key of the bucket it was removed from, if it was archived
+     */
+    public Optional<String> removeMessage(String messageId) {
+        if (!ObjectId.isValid(messageId)) {
+            return Optional.empty();
+        }
+        Query query = Query.query(containing(messageId));
+        query.fields().include("conversationId");
+        ChatMessageBucket bucket = mongoTemplate.findAndModify(
+            query,
+            new Update().pull("messages", new Document("message_id", messageId)).inc("count", -1),
+            ChatMessageBucket.class
+        );
+        return Optional.ofNullable(bucket).map(ChatMessageBucket::getConversationId);
+    }
+
+    // The bucket holding a message is located through the time embedded in its ObjectId
+    private Criteria containing(String messageId) {
+        LocalDateTime createdAround = LocalDateTime.ofInstant(
+            new ObjectId(messageId).getDate().toInstant(), ZoneId.systemDefault());
+        return Criteria.where("lastCreatedAt").gte(createdAround.minusSeconds(ID_TIME_SLACK_SECONDS))
+            .and("firstCreatedAt").lte(createdAround.plusSeconds(ID_TIME_SLACK_SECONDS))
+            .and("messages.messageId").is(messageId);
+    }
+
+    /**
+     * Delete every archived message of a conversation
+     * @param conversationId The conversation key
+     */
+    public void deleteConversation(String conversationId) {
+        mongoTemplate.remove(Query.query(Criteria.where("conversationId").is(conversationId)), ChatMessageBucket.class);
+    }
+
+    /**
+     * Merge hot and archived messages into one window
+     * A message being archived can briefly exist in both places, so duplicates are dropped
+     * @param hot Messages from chat_messages
+     * @param archived Messages from the buckets
+     * @param order Order of the window
+     * @param limit Maximum number of messages to return
+     * @return The merged window
+     */
+    public static List<ChatMessage> merge(List<ChatMessage> hot, List<ChatMessage> archived,
+                                          Comparator<ChatMessage> order, int limit) {
+        List<ChatMessage> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        merged.addAll(archived);
+        merged.sort(order);
+
+        List<ChatMessage> window = new ArrayList<>(Math.min(limit, merged.size()));
+        ChatMessage previous = null;
+        for (ChatMessage message : merged) {
+            if (window.size() == limit) {
+                break;
+            }
+            if (previous == null || !previous.getId().equals(message.getId())) {
+                window.add(message);
+            }
+            previous = message;
+        }
+        return window;
+    }
+
+    // Buckets arrive in window order; once the window is full, a bucket that starts past
+    // its last message cannot contribute and neither can any bucket after it
+    private List<ChatMessage> collect(Query query, Predicate<ChatMessage> filter, Comparator<ChatMessage> order,
+                                      int limit, BucketBoundary pastWindow) {
+        List<ChatMessage> collected = new ArrayList<>();
+        try (Stream<ChatMessageBucket> buckets = mongoTemplate.stream(query, ChatMessageBucket.class)) {
+            Iterator<ChatMessageBucket> iterator = buckets.iterator();
+            while (iterator.hasNext()) {
+                ChatMessageBucket bucket = iterator.next();
+                if (collected.size() >= limit
+                        && pastWindow.test(bucket, collected.get(limit - 1).getCreatedAt())) {
+                    break;
+                }
+                bucket.getMessages().stream()
+                    .map(message -> message.toChatMessage(bucket.getConversationId()))
+                    .filter(filter)
+                    .forEach(collected::add);
+                collected.sort(order);
+            }
+        }
+        return collected.size() > limit ? new ArrayList<>(collected.subList(0, limit)) : collected;
+    }
+
+    @FunctionalInterface
+    private interface BucketBoundary {
+        boolean test(ChatMessageBucket bucket, LocalDateTime windowEdge);
+    }
+}
@@ -1,19 +1,38 @@
 package com.whispersofus.service;
 
+import com.whispersofus.dto.KeysetCursor;
 import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ChatReadState;
+import com.whispersofus.model.ConversationSummary;
 import com.whispersofus.model.MessageType;
 import com.whispersofus.repository.ChatMessageRepository;
+import com.whispersofus.repository.ChatReadStateRepository;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
@@ -21,23 +40,208 @@ import java.util.Optional;
 @Transactional
 public class ChatMessageService {
     
+    // Offset pages ending within this many messages are merged from hot and archived storage
+    private static final int MERGE_WINDOW = 1000;
+    
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatReadStateRepository chatReadStateRepository;
+    private final ChatMessageWriteBehind chatMessageWriteBehind;
+    private final MongoTemplate mongoTemplate;
+    private final UnreadBadgeService unreadBadgeService;
+    private final ChatMessageArchive chatMessageArchive;
+    private final SearchIndex searchIndex;
+    private final ConversationSummaryService conversationSummaryService;
+    private final PartialUpdater partialUpdater;
     
     public ChatMessage sendMessage(String senderId, String receiverId, String content, MessageType messageType) {
         log.info("Sending message from {} to {}", senderId, receiverId);
         
+        ChatMessage message = chatMessageRepository.save(newMessage(senderId, receiverId, content, messageType));
+        conversationSummaryService.messageSent(message);
+        unreadBadgeService.chatMessageReceived(receiverId);
+        searchIndex.indexChatMessage(message);
+        return message;
+    }
+    
+    /**
+     * Accept a message for asynchronous persistence
+     * The returned message already carries its final id so it can be broadcast right away;
+     * the write to chat_messages is batched by {@link ChatMessageWriteBehind}
+     */
+    public ChatMessage queueMessage(String senderId, String receiverId, String content, MessageType messageType) {
+        log.info("Queueing message from {} to {}", senderId, receiverId);
+        
+        ChatMessage message = newMessage(senderId, receiverId, content, messageType);
+        message.setId(new ObjectId().toHexString());
+        chatMessageWriteBehind.enqueue(message);
+        searchIndex.indexChatMessage(message);
+        return message;
+    }
+    
+    private ChatMessage newMessage(String senderId, String receiverId, String content, MessageType messageType) {
         ChatMessage message = new ChatMessage();
         message.setSenderId(senderId);
         message.setReceiverId(receiverId);
+        message.setConversationId(ChatMessage.conversationIdOf(senderId, receiverId));
         message.setContent(content);
         message.setMessageType(messageType != null ? messageType : MessageType.TEXT);
-        
-        return chatMessageRepository.save(message);
+        return message;
     }
     
+    /**
+     * Load one page of a conversation, newest first, across hot and archived messages
+     * Pages within the merge window are merged in memory. Deeper pages are read by offset,
+     * from chat_messages first and then from the archive buckets, treating archived
+     * messages as older than every hot one.
+     */
     public Page<ChatMessage> getMessagesBetweenUsers(String userId1, String userId2, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return chatMessageRepository.findMessagesBetweenUsers(userId1, userId2, pageable);
+        String conversationId = ChatMessage.conversationIdOf(userId1, userId2);
+        long offset = (long) page * size;
+        long hotCount = chatMessageRepository.countByConversationId(conversationId);
+        long archivedCount = archivedCountOf(getConversationSummary(userId1, userId2));
+        long total = hotCount + archivedCount;
+        
+        List<ChatMessage> content;
+        if (offset >= total) {
+            content = List.of();
+        } else if (offset + size > MERGE_WINDOW) {
+            content = getMessagesAtOffset(conversationId, offset, size, hotCount, archivedCount);
+        } else {
+            int needed = (int) offset + size;
+            List<ChatMessage> hot = mongoTemplate.find(
+                new Query(Criteria.where("conversationId").is(conversationId))
+                    .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                    .limit(needed),
+                ChatMessage.class);
+            // Archived messages only matter if some are newer than the oldest hot message of a full window
+            List<ChatMessage> archived = archivedCount == 0 ? List.of()
+                : chatMessageArchive.findNewest(conversationId, null, oldestOfFullWindow(hot, needed), message -> true, needed);
+            List<ChatMessage> merged = ChatMessageArchive.merge(hot, archived, ChatMessageArchive.NEWEST_FIRST, needed);
+            content = merged.size() > offset ? merged.subList((int) offset, merged.size()) : List.of();
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+    
+    // Deep legacy pages: skip through the hot messages, then continue by position in the buckets
+    private List<ChatMessage> getMessagesAtOffset(String conversationId, long offset, int size,
+                                                  long hotCount, long archivedCount) {
+        List<ChatMessage> content = new ArrayList<>(size);
+        if (offset < hotCount) {
+            content.addAll(mongoTemplate.find(
+                new Query(Criteria.where("conversationId").is(conversationId))
+                    .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                    .skip(offset)
+                    .limit(size),
+                ChatMessage.class));
+        }
+        int remaining = size - content.size();
+        if (remaining > 0 && archivedCount > 0) {
+            content.addAll(chatMessageArchive.findAtOffset(conversationId, Math.max(0, offset - hotCount), remaining));
+        }
+        return content;
+    }
+    
+    /**
+     * Load the messages of a conversation older than a cursor, newest first
+     * Uses a range query on (createdAt, id) so the cost does not grow with history depth
+     * and no count query is issued. Archived buckets are merged in transparently.
+     * @param before Position to continue from, or null for the most recent messages
+     * @param limit Maximum number of messages to return
+     */
+    public Slice<ChatMessage> getMessagesBefore(String userId1, String userId2, KeysetCursor before, int limit) {
+        String conversationId = ChatMessage.conversationIdOf(userId1, userId2);
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (before != null) {
+            criteria.orOperator(
+                Criteria.where("createdAt").lt(before.getCreatedAt()),
+                Criteria.where("createdAt").is(before.getCreatedAt()).and("id").lt(new ObjectId(before.getId()))
+            );
+        }
+        
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+            .limit(limit + 1);
+        List<ChatMessage> hot = mongoTemplate.find(query, ChatMessage.class);
+        LocalDateTime oldestHot = oldestOfFullWindow(hot, limit + 1);
+        List<ChatMessage> archived = before == null
+            ? chatMessageArchive.findNewest(conversationId, null, oldestHot, message -> true, limit + 1)
+            : chatMessageArchive.findNewest(conversationId, before.getCreatedAt(), oldestHot,
+                message -> isBefore(message, before.getCreatedAt(), before.getId()), limit + 1);
+        List<ChatMessage> messages = ChatMessageArchive.merge(hot, archived, ChatMessageArchive.NEWEST_FIRST, limit + 1);
+        
+        boolean hasNext = messages.size() > limit;
+        List<ChatMessage> content = hasNext ? messages.subList(0, limit) : messages;
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+    
+    /**
+     * Get the messages of a conversation that are newer than a message the client already has
+     * Uses the same (createdAt, id) ordering as the history endpoint, ascending. If the
+     * last-seen message is not stored (yet), its ObjectId timestamp is used as the anchor,
+     * which may repeat a few messages from the same second but never skips one.
+     * @param userId1 The ID of one member of the conversation
+     * @param userId2 The ID of the other member
+     * @param lastSeenMessageId The ID of the newest message the client has
+     * @param limit Maximum number of messages to return
+     * @return Slice of newer messages, oldest first
+     */
+    public Slice<ChatMessage> getMessagesAfter(String userId1, String userId2, String lastSeenMessageId, int limit) {
+        String conversationId = ChatMessage.conversationIdOf(userId1, userId2);
+        ObjectId lastSeenId = new ObjectId(lastSeenMessageId);
+        
+        Query anchorQuery = Query.query(Criteria.where("id").is(lastSeenId).and("conversationId").is(conversationId));
+        anchorQuery.fields().include("createdAt");
+        ChatMessage anchor = mongoTemplate.findOne(anchorQuery, ChatMessage.class);
+        
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        LocalDateTime from;
+        Predicate<ChatMessage> newer;
+        if (anchor != null) {
+            from = anchor.getCreatedAt();
+            newer = message -> isAfter(message, anchor.getCreatedAt(), lastSeenMessageId);
+            criteria.orOperator(
+                Criteria.where("createdAt").gt(anchor.getCreatedAt()),
+                Criteria.where("createdAt").is(anchor.getCreatedAt()).and("id").gt(lastSeenId)
+            );
+        } else {
+            LocalDateTime seenAt = LocalDateTime.ofInstant(lastSeenId.getDate().toInstant(), ZoneId.systemDefault());
+            from = seenAt;
+            newer = message -> !message.getCreatedAt().isBefore(seenAt) && !message.getId().equals(lastSeenMessageId);
+            criteria.and("createdAt").gte(seenAt).and("id").ne(lastSeenId);
+        }
+        
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+            .limit(limit + 1);
+        List<ChatMessage> hot = mongoTemplate.find(query, ChatMessage.class);
+        List<ChatMessage> messages = ChatMessageArchive.merge(
+            hot, chatMessageArchive.findOldest(conversationId, from, newer, limit + 1),
+            ChatMessageArchive.OLDEST_FIRST, limit + 1);
+        
+        boolean hasNext = messages.size() > limit;
+        List<ChatMessage> content = hasNext ? messages.subList(0, limit) : messages;
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+    
+    // Creation time of the last message of a newest-first window that the hot query filled on its own
+    private static LocalDateTime oldestOfFullWindow(List<ChatMessage> newestFirst, int window) {
+        return newestFirst.size() >= window ? newestFirst.get(window - 1).getCreatedAt() : null;
+    }
+    
+    private static long archivedCountOf(ConversationSummary summary) {
+        return summary.getArchivedCount() != null ? summary.getArchivedCount() : 0;
+    }
+    
+    // Keyset position checks matching the (createdAt, id) ordering of the queries above
+    private static boolean isBefore(ChatMessage message, LocalDateTime createdAt, String id) {
+        int byTime = message.getCreatedAt().compareTo(createdAt);
+        return byTime < 0 || (byTime == 0 && message.getId().compareTo(id) < 0);
+    }
+    
+    private static boolean isAfter(ChatMessage message, LocalDateTime createdAt, String id) {
+        int byTime = message.getCreatedAt().compareTo(createdAt);
+        return byTime > 0 || (byTime == 0 && message.getId().compareTo(id) > 0);
     }
     
     public List<ChatMessage> getUnreadMessages(String receiverId) {
@@ -49,42 +253,158 @@ public class ChatMessageService {
     }
     
     public ChatMessage markMessageAsRead(String messageId) {
-        Optional<ChatMessage> messageOpt = chatMessageRepository.findById(messageId);
-        if (messageOpt.isPresent()) {
-            ChatMessage message = messageOpt.get();
-            message.setRead(true);
+        LocalDateTime now = LocalDateTime.now();
+        ChatMessage message = partialUpdater.updateIf(ChatMessage.class, messageId,
+            Criteria.where("isRead").is(false),
+            new Update().set("isRead", true).set("readAt", now).set("updatedAt", now)
+        ).orElse(null);
+        if (message != null) {
             log.info("Marking message as read: {}", messageId);
-            return chatMessageRepository.save(message);
+            conversationSummaryService.messagesRead(message.getConversationId(), message.getReceiverId(), 1);
+            unreadBadgeService.chatMessagesRead(message.getReceiverId(), 1);
+            return message;
         }
-        throw new RuntimeException("Message not found with id: " + messageId);
+        
+        // Nothing modified: the message is already read, possibly archived, or does not exist
+        return chatMessageRepository.findById(messageId)
+            .or(() -> chatMessageArchive.findMessage(messageId))
+            .orElseThrow(() -> new RuntimeException("Message not found with id: " + messageId));
+    }
+    
+    public long markMessagesAsRead(String senderId, String receiverId) {
+        return markConversationReadUpTo(receiverId, senderId, LocalDateTime.now(), null);
     }
     
-    public void markMessagesAsRead(String senderId, String receiverId) {
-        List<ChatMessage> unreadMessages = chatMessageRepository
-            .findByReceiverIdAndIsReadFalseOrderByCreatedAtDesc(receiverId);
+    /**
+     * Mark the messages a reader received in a conversation as read, up to a point in time
+     * One updateMany flips the per-message flags and one upsert advances the read watermark,
+     * regardless of how many messages were unread
+     * @param readerId The ID of the user who read the messages
+     * @param partnerId The ID of the other participant
+     * @param upTo Messages created at or before this instant are marked read
+     * @param upToMessageId The ID of the last message read, if known
+     * @return The number of messages that changed from unread to read
+     */
+    public long markConversationReadUpTo(String readerId, String partnerId, LocalDateTime upTo, String upToMessageId) {
+        String conversationId = ChatMessage.conversationIdOf(readerId, partnerId);
+        LocalDateTime now = LocalDateTime.now();
         
-        for (ChatMessage message : unreadMessages) {
-            if (message.getSenderId().equals(senderId)) {
-                message.setRead(true);
-                chatMessageRepository.save(message);
-            }
+        UpdateResult result = mongoTemplate.updateMulti(
+            Query.query(Criteria.where("conversationId").is(conversationId)
+                .and("receiverId").is(readerId)
+                .and("isRead").is(false)
+                .and("createdAt").lte(upTo)),
+            new Update().set("isRead", true).set("readAt", now).set("updatedAt", now),
+            ChatMessage.class
+        );
+        advanceReadWatermark(conversationId, readerId, upTo, upToMessageId);
+        conversationSummaryService.messagesRead(conversationId, readerId, result.getModifiedCount());
+        unreadBadgeService.chatMessagesRead(readerId, result.getModifiedCount());
+        
+        log.info("Marked {} messages as read between {} and {}", result.getModifiedCount(), partnerId, readerId);
+        return result.getModifiedCount();
+    }
+    
+    public Optional<ChatReadState> getReadState(String readerId, String partnerId) {
+        return chatReadStateRepository.findById(
+            ChatReadState.idOf(ChatMessage.conversationIdOf(readerId, partnerId), readerId));
+    }
+    
+    // Only ever moves the watermark forward; a concurrent newer watermark wins
+    private void advanceReadWatermark(String conversationId, String userId, LocalDateTime upTo, String messageId) {
+        Query query = Query.query(Criteria.where("id").is(ChatReadState.idOf(conversationId, userId))
+            .orOperator(
+                Criteria.where("lastReadAt").lt(upTo),
+                Criteria.where("lastReadAt").exists(false)
+            ));
+        Update update = new Update()
+            .set("conversationId", conversationId)
+            .set("userId", userId)
+            .set("lastReadAt", upTo)
+            .set("lastReadMessageId", messageId)
+            .set("updatedAt", LocalDateTime.now());
+        try {
+            mongoTemplate.upsert(query, update, ChatReadState.class);
+        } catch (DuplicateKeyException e) {
+            log.debug("Read watermark of {} in {} is already past {}", userId, conversationId, upTo);
         }
-        log.info("Marked messages as read between {} and {}", senderId, receiverId);
     }
     
+    /**
+     * Get the newest message of a conversation
+     * Served from the conversation summary with a single point read; conversations that
+     * predate summaries get theirs built from chat_messages on first access
+     */
     public Optional<ChatMessage> getLatestMessage(String userId1, String userId2) {
-        List<ChatMessage> messages = chatMessageRepository.findLatestMessageBetweenUsers(userId1, userId2);
-        return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(0));
+        return ConversationSummaryService.toLatestMessage(getConversationSummary(userId1, userId2));
+    }
+    
+    /**
+     * Get the summary of a conversation, creating it if the conversation predates summaries
+     * @param userId1 The ID of one participant
+     * @param userId2 The ID of the other participant
+     * @return The conversation summary
+     */
+    public ConversationSummary getConversationSummary(String userId1, String userId2) {
+        String conversationId = ChatMessage.conversationIdOf(userId1, userId2);
+        ConversationSummary summary = conversationSummaryService.getSummary(conversationId)
+            .orElseGet(() -> conversationSummaryService.initialize(
+                conversationId, userId1, userId2,
+                findLatestMessage(conversationId).orElse(null),
+                Map.of(
+                    userId1, chatMessageRepository.countByConversationIdAndReceiverIdAndIsReadFalse(conversationId, userId1),
+                    userId2, chatMessageRepository.countByConversationIdAndReceiverIdAndIsReadFalse(conversationId, userId2)
+                ),
+                chatMessageArchive.countMessages(conversationId)));
+        if (summary.getArchivedCount() == null) {
+            // Summary written before archived counts were tracked; counted once, then maintained
+            long archivedCount = chatMessageArchive.countMessages(conversationId);
+            conversationSummaryService.initializeArchivedCount(conversationId, archivedCount);
+            summary.setArchivedCount(archivedCount);
+        }
+        return summary;
+    }
+    
+    // Newest message across hot and archived storage
+    private Optional<ChatMessage> findLatestMessage(String conversationId) {
+        List<ChatMessage> hot = chatMessageRepository.findFirstByConversationIdOrderByCreatedAtDesc(conversationId)
+            .map(List::of)
+            .orElse(List.of());
+        LocalDateTime newestHot = hot.isEmpty() ? null : hot.get(0).getCreatedAt();
+        List<ChatMessage> latest = ChatMessageArchive.merge(
+            hot, chatMessageArchive.findNewest(conversationId, null, newestHot, message -> true, 1),
+            ChatMessageArchive.NEWEST_FIRST, 1);
+        return latest.stream().findFirst();
     }
     
     public void deleteMessage(String messageId) {
         log.info("Deleting message: {}", messageId);
-        chatMessageRepository.deleteById(messageId);
+        ChatMessage removed = mongoTemplate.findAndRemove(
+            Query.query(Criteria.where("id").is(messageId)), ChatMessage.class);
+        searchIndex.remove(messageId);
+        if (removed == null) {
+            // Archived messages are always read, so no badge changes
+            chatMessageArchive.removeMessage(messageId)
+                .ifPresent(conversationId -> conversationSummaryService.messagesArchived(conversationId, -1));
+        } else if (!removed.isRead()) {
+            conversationSummaryService.messagesRead(removed.getConversationId(), removed.getReceiverId(), 1);
+            unreadBadgeService.chatMessagesRead(removed.getReceiverId(), 1);
+        }
+        
+        // Deleting the message shown as last message moves the summary back to the previous one
+        Optional<String> summarized = removed != null
+            ? Optional.ofNullable(removed.getConversationId()).filter(id -> conversationSummaryService.isLastMessage(id, messageId))
+            : conversationSummaryService.findConversationOfLastMessage(messageId);
+        summarized.ifPresent(conversationId -> conversationSummaryService.replaceLastMessage(
+            conversationId, findLatestMessage(conversationId).orElse(null)));
     }
     
     public void deleteConversation(String userId1, String userId2) {
         log.info("Deleting conversation between {} and {}", userId1, userId2);
-        chatMessageRepository.deleteBySenderIdAndReceiverId(userId1, userId2);
-        chatMessageRepository.deleteBySenderIdAndReceiverId(userId2, userId1);
+        String conversationId = ChatMessage.conversationIdOf(userId1, userId2);
+        chatMessageRepository.deleteByConversationId(conversationId);
+        chatMessageArchive.deleteConversation(conversationId);
+        conversationSummaryService.deleteSummary(conversationId);
+        searchIndex.removeConversation(conversationId, SearchIndex.DocumentType.CHAT_MESSAGE);
     }
 } 
\ No newline at end of file
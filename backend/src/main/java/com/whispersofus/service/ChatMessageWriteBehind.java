@@ -0,0 +1,243 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind pipeline for chat messages
+ * Messages are queued with a server-generated id and group-committed to chat_messages
+ * with a single unordered insertMany once a batch fills up or the flush interval passes.
+ * A full queue pushes back on the caller, which then writes its message synchronously.
+ * Conversation summaries and unread badges are updated once a batch is stored, never before.
+ */
+@Component
+@Slf4j
+public class ChatMessageWriteBehind {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ConversationSummaryService conversationSummaryService;
+    private final UnreadBadgeService unreadBadgeService;
+    private final BlockingQueue<ChatMessage> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final int maxRetries;
+
+    private final DistributionSummary batchSizes;
+    private final Counter overflowWrites;
+    private final Counter failedMessages;
+
+    // Enqueues hold the read lock, so once shutdown holds the write lock nothing more reaches the queue
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public ChatMessageWriteBehind(MongoTemplate mongoTemplate,
+                                  ConversationSummaryService conversationSummaryService,
+                                  UnreadBadgeService unreadBadgeService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.chat.write-behind.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.chat.write-behind.batch-size:100}") int batchSize,
+                                  @Value("${app.chat.write-behind.flush-interval:50ms}") Duration flushInterval,
+                                  @Value("${app.chat.write-behind.offer-timeout:100ms}") Duration offerTimeout,
+                                  @Value("${app.chat.write-behind.max-retries:5}") int maxRetries) {
+        this.mongoTemplate = mongoTemplate;
+        this.conversationSummaryService = conversationSummaryService;
+        this.unreadBadgeService = unreadBadgeService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.maxRetries = maxRetries;
+
+        Gauge.builder("chat.writebehind.queue.depth", queue, BlockingQueue::size)
+                .description("Chat messages waiting to be persisted")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chat.writebehind.batch.size")
+                .description("Number of chat messages per insertMany")
+                .register(meterRegistry);
+        this.overflowWrites = Counter.builder("chat.writebehind.overflow")
+                .description("Messages written synchronously because the queue was full")
+                .register(meterRegistry);
+        this.failedMessages = Counter.builder("chat.writebehind.failed")
+                .description("Messages that could not be persisted after all retries")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::runWriter, "chat-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a message for persistence
+     * The message must already carry its id. If the queue stays full for longer than
+     * the offer timeout the message is written on the calling thread instead.
+     * @param message The message to persist
+     */
+    public void enqueue(ChatMessage message) {
+        boolean accepted = false;
+        stateLock.readLock().lock();
+        try {
+            if (running) {
+                accepted = queue.offer(message, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        if (!accepted) {
+            log.warn("Chat write-behind queue saturated, writing message {} synchronously", message.getId());
+            overflowWrites.increment();
+            writeWithRetry(List.of(message));
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChatMessage first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the flush interval has elapsed
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected error in chat write-behind: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<ChatMessage> batch) {
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class)
+                        .insert(batch)
+                        .execute();
+                batchSizes.record(batch.size());
+                persisted(batch);
+                return;
+            } catch (BulkOperationException e) {
+                // Duplicate keys mean an earlier attempt already stored those messages
+                if (e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+                    batchSizes.record(batch.size());
+                    persisted(batch);
+                    return;
+                }
+                log.warn("Chat batch insert attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+            } catch (DataAccessException e) {
+                log.warn("Chat batch insert attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(100L << Math.min(attempt, 6));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        failedMessages.increment(batch.size());
+        log.error("Failed to persist {} chat messages: {}", batch.size(),
+                batch.stream().map(ChatMessage::getId).toList());
+    }
+
+    // Runs after the insert so summaries never point at a message that was not stored
+    // and a lazily created badge counter already counts these messages
+    private void persisted(List<ChatMessage> batch) {
+        batch.forEach(conversationSummaryService::messageSent);
+
+        Map<String, Long> received = batch.stream()
+                .collect(Collectors.groupingBy(ChatMessage::getReceiverId, Collectors.counting()));
+        received.forEach((receiverId, count) -> {
+            try {
+                unreadBadgeService.chatMessagesReceived(receiverId, count);
+            } catch (Exception e) {
+                log.warn("Failed to update unread badge for {}: {}", receiverId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stop the writer and flush whatever is still queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        if (writer != null) {
+            try {
+                writer.join(flushInterval.toMillis() * 2 + 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<ChatMessage> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            writeWithRetry(remaining);
+            remaining.clear();
+        }
+        log.info("Chat write-behind stopped");
+    }
+}
@@ -0,0 +1,266 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ConversationSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains the conversation_summaries documents behind the latest-message and inbox views
+ * Every send upserts the summary of its conversation in one write: the last message
+ * fields move forward only if the message is newer, and the receiver's unread count
+ * is incremented. Reads decrement the reader's side with the same guarded $inc as
+ * {@link UnreadBadgeService}.
+ */
+@Service
+@Slf4j
+public class ConversationSummaryService {
+
+    private static final String UNREAD_COUNTS = "unreadCounts.";
+
+    private final MongoTemplate mongoTemplate;
+    private final int snippetLength;
+
+    public ConversationSummaryService(MongoTemplate mongoTemplate,
+                                      @Value("${app.chat.summary.snippet-length:500}") int snippetLength) {
+        this.mongoTemplate = mongoTemplate;
+        this.snippetLength = snippetLength;
+    }
+
+    public Optional<ConversationSummary> getSummary(String conversationId) {
+        return Optional.ofNullable(mongoTemplate.findById(conversationId, ConversationSummary.class));
+    }
+
+    /**
+     * Conversations of a user, most recently active first
+     * @param userId The ID of the participant
+     * @param limit Maximum number of conversations to return
+     * @return The summaries, served by the participant_last_message_idx index
+     */
+    public List<ConversationSummary> getInbox(String userId, int limit) {
+        Query query = new Query(Criteria.where("participantIds").is(userId))
+            .with(Sort.by(Sort.Direction.DESC, "lastMessageAt"))
+            .limit(limit);
+        return mongoTemplate.find(query, ConversationSummary.class);
+    }
+
+    /**
+     * Record a newly sent message
+     * @param message The message, with its final id and createdAt
+     */
+    public void messageSent(ChatMessage message) {
+        String conversationId = message.getConversationId();
+        try {
+            // Matches only if this message is newer than the stored one; otherwise the upsert
+            // collides with the existing document and just the unread count is adjusted
+            Query newer = Query.query(Criteria.where("id").is(conversationId)
+                .orOperator(
+                    Criteria.where("lastMessageAt").lt(message.getCreatedAt()),
+                    Criteria.where("lastMessageAt").exists(false)
+                ));
+            Update update = lastMessageUpdate(message)
+                .addToSet("participantIds").each(message.getSenderId(), message.getReceiverId())
+                .inc(UNREAD_COUNTS + message.getReceiverId(), 1);
+            mongoTemplate.upsert(newer, update, ConversationSummary.class);
+        } catch (DuplicateKeyException e) {
+            mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(conversationId)),
+                new Update().inc(UNREAD_COUNTS + message.getReceiverId(), 1).set("updatedAt", LocalDateTime.now()),
+                ConversationSummary.class
+            );
+        } catch (Exception e) {
+            log.error("Failed to update conversation summary {}: {}", conversationId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lower a participant's unread count after messages were read or deleted unread
+     * @param conversationId The conversation key
+     * @param userId The ID of the reading participant
+     * @param count Number of messages that are no longer unread
+     */
+    public void messagesRead(String conversationId, String userId, long count) {
+        if (count <= 0) {
+            return;
+        }
+
+        try {
+            Query query = Query.query(Criteria.where("id").is(conversationId).and(UNREAD_COUNTS + userId).gte(count));
+            Update update = new Update().inc(UNREAD_COUNTS + userId, -count).set("updatedAt", LocalDateTime.now());
+            if (mongoTemplate.updateFirst(query, update, ConversationSummary.class).getMatchedCount() == 0) {
+                // The counter drifted below the number of messages read; nothing is left unread
+                mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("id").is(conversationId)),
+                    new Update().set(UNREAD_COUNTS + userId, 0L).set("updatedAt", LocalDateTime.now()),
+                    ConversationSummary.class
+                );
+            }
+        } catch (Exception e) {
+            log.error("Failed to update unread count of {} in {}: {}", userId, conversationId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adjust the archived message count after messages were moved to or removed from buckets
+     * Summaries without a count are left alone; theirs is computed on first read
+     * @param conversationId The conversation key
+     * @param delta Number of messages archived, negative for removed ones
+     */
+    public void messagesArchived(String conversationId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        
+        try {
+            mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(conversationId).and("archivedCount").exists(true)),
+                new Update().inc("archivedCount", delta).set("updatedAt", LocalDateTime.now()),
+                ConversationSummary.class
+            );
+        } catch (Exception e) {
+            log.error("Failed to update archived count of {}: {}", conversationId, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Store the archived message count of a summary that predates the field
+     * @param conversationId The conversation key
+     * @param archivedCount Messages in the conversation's buckets
+     */
+    public void initializeArchivedCount(String conversationId, long archivedCount) {
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("id").is(conversationId).and("archivedCount").exists(false)),
+            new Update().set("archivedCount", archivedCount),
+            ConversationSummary.class
+        );
+    }
+    
+    /**
+     * Whether a message is the one shown as the last message of its conversation
+     * @param conversationId The conversation key
+     * @param messageId The ID of the message
+     * @return True if the summary points at the message
+     */
+    public boolean isLastMessage(String conversationId, String messageId) {
+        return mongoTemplate.exists(
+            Query.query(Criteria.where("id").is(conversationId).and("lastMessageId").is(messageId)),
+            ConversationSummary.class);
+    }
+
+    /**
+     * Find the conversation whose last message is the given one
+     * @param messageId The ID of the message
+     * @return The conversation key, if the message is shown as a last message
+     */
+    public Optional<String> findConversationOfLastMessage(String messageId) {
+        Query query = Query.query(Criteria.where("lastMessageId").is(messageId));
+        query.fields().include("id");
+        return Optional.ofNullable(mongoTemplate.findOne(query, ConversationSummary.class))
+            .map(ConversationSummary::getId);
+    }
+
+    /**
+     * Point the summary at a different last message, e.g. after the previous one was deleted
+     * @param conversationId The conversation key
+     * @param latest The newest remaining message, or null if the conversation is now empty
+     */
+    public void replaceLastMessage(String conversationId, ChatMessage latest) {
+        Update update = latest != null
+            ? lastMessageUpdate(latest)
+            : new Update()
+                .unset("lastMessageId").unset("lastSenderId").unset("lastReceiverId")
+                .unset("lastMessageSnippet").unset("lastMessageType").unset("lastMessageAt")
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(conversationId)), update, ConversationSummary.class);
+    }
+
+    /**
+     * Create the summary of a conversation that predates summaries
+     * @param conversationId The conversation key
+     * @param userId1 The ID of one participant
+     * @param userId2 The ID of the other participant
+     * @param latest The newest message of the conversation, or null if there is none
+     * @param unreadCounts Unread messages per participant, counted from chat_messages
+     * @param archivedCount Messages in the conversation's buckets
+     * @return The stored summary, or the concurrently created one
+     */
+    public ConversationSummary initialize(String conversationId, String userId1, String userId2,
+                                          ChatMessage latest, Map<String, Long> unreadCounts, long archivedCount) {
+        ConversationSummary summary = new ConversationSummary();
+        summary.setId(conversationId);
+        summary.setParticipantIds(List.of(userId1, userId2));
+        summary.setUnreadCounts(unreadCounts);
+        summary.setArchivedCount(archivedCount);
+        if (latest != null) {
+            summary.setLastMessageId(latest.getId());
+            summary.setLastSenderId(latest.getSenderId());
+            summary.setLastReceiverId(latest.getReceiverId());
+            summary.setLastMessageSnippet(snippetOf(latest.getContent()));
+            summary.setLastMessageType(latest.getMessageType());
+            summary.setLastMessageAt(latest.getCreatedAt());
+        }
+
+        try {
+            return mongoTemplate.insert(summary);
+        } catch (DuplicateKeyException e) {
+            ConversationSummary existing = mongoTemplate.findById(conversationId, ConversationSummary.class);
+            return existing != null ? existing : summary;
+        }
+    }
+
+    public void deleteSummary(String conversationId) {
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(conversationId)), ConversationSummary.class);
+    }
+
+    /**
+     * Rebuild the last message of the summary as a chat message
+     * The content is the stored snippet, and the message counts as read once the
+     * receiver has nothing unread left in the conversation
+     * @param summary The summary
+     * @return The message, if the conversation has one
+     */
+    public static Optional<ChatMessage> toLatestMessage(ConversationSummary summary) {
+        if (summary.getLastMessageId() == null) {
+            return Optional.empty();
+        }
+
+        ChatMessage message = new ChatMessage(summary.getLastSenderId(), summary.getLastReceiverId(), summary.getLastMessageSnippet());
+        message.setId(summary.getLastMessageId());
+        message.setConversationId(summary.getId());
+        message.setMessageType(summary.getLastMessageType());
+        message.setCreatedAt(summary.getLastMessageAt());
+        message.setUpdatedAt(summary.getLastMessageAt());
+        message.setRead(summary.unreadCountOf(summary.getLastReceiverId()) == 0);
+        return Optional.of(message);
+    }
+
+    private Update lastMessageUpdate(ChatMessage message) {
+        return new Update()
+            .set("lastMessageId", message.getId())
+            .set("lastSenderId", message.getSenderId())
+            .set("lastReceiverId", message.getReceiverId())
+            .set("lastMessageSnippet", snippetOf(message.getContent()))
+            .set("lastMessageType", message.getMessageType())
+            .set("lastMessageAt", message.getCreatedAt())
+            .set("updatedAt", LocalDateTime.now());
+    }
+
+    private String snippetOf(String content) {
+        if (content == null || content.length() <= snippetLength) {
+            return content;
+        }
+        return content.substring(0, snippetLength);
+    }
+}
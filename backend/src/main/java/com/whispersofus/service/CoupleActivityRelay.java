@@ -0,0 +1,44 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.CoupleActivity;
+import com.whispersofus.event.CoupleActivityEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes love note, wish and surprise activity to the partner on /queue/events
+ * Lets clients learn about new content from the STOMP connection they already hold
+ * instead of polling the REST endpoints
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoupleActivityRelay {
+
+    public static final String EVENTS_DESTINATION = "/queue/events";
+
+    private final CoupleMessagingService coupleMessagingService;
+    private final PartnerResolver partnerResolver;
+
+    @EventListener
+    public void onCoupleActivity(CoupleActivityEvent event) {
+        String recipientId = event.getRecipientId();
+        if (recipientId == null && event.getActorId() != null) {
+            recipientId = partnerResolver.findPartnerId(event.getActorId()).orElse(null);
+        }
+        if (recipientId == null || recipientId.equals(event.getActorId())) {
+            log.debug("No one to notify of {}", event.getType());
+            return;
+        }
+
+        try {
+            coupleMessagingService.sendToUser(recipientId, EVENTS_DESTINATION, new CoupleActivity(
+                event.getType().name(), event.getActorId(), event.getPayload(), event.getOccurredAt()));
+        } catch (Exception e) {
+            // The change is saved either way; the client catches up on its next fetch
+            log.error("Failed to push {} to user {}: {}", event.getType(), recipientId, e.getMessage(), e);
+        }
+    }
+}
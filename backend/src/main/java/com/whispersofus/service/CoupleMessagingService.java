@@ -0,0 +1,88 @@
+package com.whispersofus.service;
+
+import com.whispersofus.config.PayloadCodecRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+/**
+ * Delivers real-time frames to the members of a partnership only
+ * Frames go to the per-user queue (/user/queue/...) of each member instead of a
+ * shared topic, so the fan-out of a message is bounded by the size of the couple
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoupleMessagingService {
+
+    public static final String MESSAGES_DESTINATION = "/queue/messages";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PayloadCodecRegistry payloadCodecRegistry;
+
+    /**
+     * Send a payload to every session of a single user
+     * @param userId The database ID of the receiving user
+     * @param destination The user destination, e.g. /queue/messages
+     * @param payload The payload to convert and send
+     */
+    public void sendToUser(String userId, String destination, Object payload) {
+        MimeType contentType = payloadCodecRegistry.contentTypeForUser(userId);
+        if (contentType == null) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+            return;
+        }
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(contentType);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(userId, destination, payload, headers.getMessageHeaders());
+    }
+
+    /**
+     * Send a payload to one session of a user, e.g. to replay history on reconnect
+     * @param userId The database ID of the receiving user
+     * @param sessionId The WebSocket session to deliver to
+     * @param destination The user destination, e.g. /queue/messages
+     * @param payload The payload to convert and send
+     */
+    public void sendToSession(String userId, String sessionId, String destination, Object payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        MimeType contentType = payloadCodecRegistry.contentTypeForSession(userId, sessionId);
+        if (contentType != null) {
+            headers.setContentType(contentType);
+        }
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(userId, destination, payload, headers.getMessageHeaders());
+    }
+
+    /**
+     * Send a chat frame to the user's partner only
+     * @param partnerId The database ID of the partner
+     * @param payload The payload to convert and send
+     */
+    public void sendToPartner(String partnerId, Object payload) {
+        if (partnerId == null) {
+            log.debug("No partner to deliver frame to");
+            return;
+        }
+        sendToUser(partnerId, MESSAGES_DESTINATION, payload);
+    }
+
+    /**
+     * Send a chat frame to both members of a partnership
+     * @param userId The database ID of the acting user
+     * @param partnerId The database ID of the partner
+     * @param payload The payload to convert and send
+     */
+    public void sendToCouple(String userId, String partnerId, Object payload) {
+        sendToUser(userId, MESSAGES_DESTINATION, payload);
+        if (partnerId != null && !partnerId.equals(userId)) {
+            sendToUser(partnerId, MESSAGES_DESTINATION, payload);
+        }
+    }
+}
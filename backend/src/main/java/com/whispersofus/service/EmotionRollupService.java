@@ -0,0 +1,172 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.EmotionRollupResponse;
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.EmotionRollup;
+import com.whispersofus.model.EmotionTag;
+import com.whispersofus.model.LoveNote;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Maintains per-couple, per-month emotion tag counters for love note analytics
+ * Creating a note $inc's the counter of its tag in the month's rollup document and
+ * deleting it decrements it again. Scheduled notes are counted once they are delivered. A rebuild regenerates every rollup from love_notes;
+ * it runs at startup when no rollups exist yet and optionally on a cron schedule.
+ */
+@Service
+@Slf4j
+public class EmotionRollupService {
+
+    private static final String COUNTS = "counts.";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean rebuildOnStartup;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public EmotionRollupService(MongoTemplate mongoTemplate,
+                                @Value("${app.love-notes.rollups.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public void noteCreated(LoveNote note) {
+        adjust(note, 1);
+    }
+
+    public void noteDeleted(LoveNote note) {
+        adjust(note, -1);
+    }
+
+    private void adjust(LoveNote note, long delta) {
+        if (note.getCoupleId() == null || note.getCreatedAt() == null) {
+            return;
+        }
+
+        YearMonth month = YearMonth.from(note.getCreatedAt());
+        Update update = new Update().inc("total", delta).set("updatedAt", LocalDateTime.now());
+        if (note.getEmotionTag() != null) {
+            update.inc(COUNTS + note.getEmotionTag().name(), delta);
+        }
+
+        try {
+            Query query = Query.query(Criteria.where("id").is(EmotionRollup.idOf(note.getCoupleId(), month)));
+            if (delta > 0) {
+                update.setOnInsert("coupleId", note.getCoupleId()).setOnInsert("month", month.toString());
+                mongoTemplate.upsert(query, update, EmotionRollup.class);
+            } else {
+                // Never below zero; a missing or drifted rollup is corrected by the next rebuild
+                query.addCriteria(Criteria.where("total").gte(-delta));
+                mongoTemplate.updateFirst(query, update, EmotionRollup.class);
+            }
+        } catch (Exception e) {
+            log.error("Failed to update emotion rollup of {} for {}: {}", note.getCoupleId(), month, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Monthly emotion counts of a couple, oldest month first
+     * Answered from the rollup documents with a single range query on couple_month_idx;
+     * months without notes are included with zero counts
+     * @param coupleId The couple key
+     * @param from First month to include
+     * @param to Last month to include
+     * @return One entry per month in the range
+     */
+    public List<EmotionRollupResponse> getMonthlyEmotions(String coupleId, YearMonth from, YearMonth to) {
+        Query query = new Query(Criteria.where("coupleId").is(coupleId)
+            .and("month").gte(from.toString()).lte(to.toString()))
+            .with(Sort.by(Sort.Direction.ASC, "month"));
+        Map<String, EmotionRollup> rollups = new HashMap<>();
+        mongoTemplate.find(query, EmotionRollup.class).forEach(rollup -> rollups.put(rollup.getMonth(), rollup));
+
+        List<EmotionRollupResponse> months = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            EmotionRollup rollup = rollups.get(month.toString());
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (EmotionTag tag : EmotionTag.values()) {
+                Long count = rollup != null ? rollup.getCounts().get(tag.name()) : null;
+                counts.put(tag.name(), count != null ? Math.max(count, 0) : 0);
+            }
+            months.add(new EmotionRollupResponse(month.toString(), counts, rollup != null ? rollup.getTotal() : 0));
+        }
+        return months;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!rebuildOnStartup || mongoTemplate.exists(new Query(), EmotionRollup.class)) {
+            return;
+        }
+        Thread worker = new Thread(this::rebuild, "emotion-rollup-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Regenerate every rollup document from love_notes
+     * Streams the notes once and replaces each rollup with the recounted values; writes
+     * made while the rebuild runs may be overwritten and are picked up by the next one
+     */
+    @Scheduled(cron = "${app.love-notes.rollups.rebuild-cron:-}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Query query = new Query();
+            query.fields().include("coupleId").include("senderId").include("receiverId")
+                .include("emotionTag").include("createdAt").include("deliverAt").include("deliveredAt");
+
+            Map<String, EmotionRollup> rollups = new HashMap<>();
+            try (Stream<LoveNote> notes = mongoTemplate.stream(query, LoveNote.class)) {
+                // Scheduled notes stay out of the analytics until they are delivered
+                notes.filter(note -> note.getCreatedAt() != null && note.isDelivered()).forEach(note -> {
+                    // Notes not reached by LoveNoteCoupleBackfill yet are keyed the same way it will
+                    String coupleId = note.getCoupleId() != null
+                        ? note.getCoupleId()
+                        : ChatMessage.conversationIdOf(note.getSenderId(), note.getReceiverId());
+                    if (coupleId == null || coupleId.isEmpty()) {
+                        return;
+                    }
+                    YearMonth month = YearMonth.from(note.getCreatedAt());
+                    EmotionRollup rollup = rollups.computeIfAbsent(EmotionRollup.idOf(coupleId, month),
+                        id -> new EmotionRollup(coupleId, month));
+                    rollup.setTotal(rollup.getTotal() + 1);
+                    if (note.getEmotionTag() != null) {
+                        rollup.getCounts().merge(note.getEmotionTag().name(), 1L, Long::sum);
+                    }
+                });
+            }
+
+            rollups.values().forEach(mongoTemplate::save);
+            // Rollups of months whose notes are all gone
+            mongoTemplate.remove(new Query(Criteria.where("id").nin(rollups.keySet())), EmotionRollup.class);
+            log.info("Rebuilt {} emotion rollups from love notes", rollups.size());
+        } catch (Exception e) {
+            log.error("Emotion rollup rebuild failed: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+}
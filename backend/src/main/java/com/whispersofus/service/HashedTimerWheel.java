@@ -0,0 +1,127 @@
+package com.whispersofus.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for large numbers of coarse-grained timeouts
+ * Timeouts are hashed into slots by deadline; a single worker thread advances one slot
+ * per tick and fires the entries whose round has come. Adding a timeout is O(1) and the
+ * worker only ever touches the current slot, so millions of pending timers cost no
+ * more per tick than a handful. Precision is one tick.
+ * @param <T> The type of the scheduled items
+ */
+@Slf4j
+class HashedTimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Queue<Timeout<T>>> wheel;
+    // New timeouts are placed into slots by the worker, so they never race with a tick
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> handler;
+    private final Thread worker;
+    private final long startMillis;
+
+    private volatile boolean running;
+    // Current tick; only the worker reads and writes it
+    private long tick;
+
+    HashedTimerWheel(String name, Duration tickDuration, int wheelSize, Consumer<T> handler) {
+        this.tickMillis = Math.max(1, tickDuration.toMillis());
+        int slots = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.wheel = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.handler = handler;
+        this.startMillis = System.currentTimeMillis();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        worker.start();
+    }
+
+    void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Schedule an item
+     * Safe to call from any thread; deadlines in the past fire on the next tick
+     * @param item The item handed to the handler when the timeout fires
+     * @param deadlineMillis Epoch milliseconds at which to fire
+     */
+    void schedule(T item, long deadlineMillis) {
+        pending.add(new Timeout<>(item, deadlineMillis));
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis + tickMillis - 1) / tickMillis, tick);
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.size();
+            wheel.get((int) (deadlineTick & (wheel.size() - 1))).add(timeout);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = startMillis + (tick + 1) * tickMillis;
+            long sleep = nextTickAt - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            tick++;
+            transferPending();
+            expire(wheel.get((int) (tick & (wheel.size() - 1))));
+        }
+    }
+
+    private void expire(Queue<Timeout<T>> slot) {
+        Iterator<Timeout<T>> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                continue;
+            }
+            iterator.remove();
+            try {
+                handler.accept(timeout.item);
+            } catch (Exception e) {
+                log.error("Timer wheel handler failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMillis;
+        // Full revolutions of the wheel left before the timeout is due; worker thread only
+        private long remainingRounds;
+
+        private Timeout(T item, long deadlineMillis) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.whispersofus.service;
+
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.LoveNote;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off migration that stores coupleId on love notes written before it existed
+ * Runs in the background after startup in batches, like {@link ChatConversationBackfill},
+ * so it can be interrupted at any point and resumes on the next start
+ */
+@Component
+@Slf4j
+public class LoveNoteCoupleBackfill {
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public LoveNoteCoupleBackfill(MongoTemplate mongoTemplate,
+                                  @Value("${app.chat.backfill.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::run, "love-note-couple-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        try {
+            long updated = backfill();
+            if (updated > 0) {
+                log.info("Backfilled coupleId on {} love notes", updated);
+            }
+        } catch (Exception e) {
+            log.error("Love note couple backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private long backfill() {
+        Query query = new Query(Criteria.where("coupleId").exists(false)).limit(batchSize);
+        query.fields().include("senderId").include("receiverId");
+
+        long updated = 0;
+        List<LoveNote> batch;
+        while (!(batch = mongoTemplate.find(query, LoveNote.class)).isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LoveNote.class);
+            for (LoveNote note : batch) {
+                // Notes missing a participant get an empty key so they are not picked up again
+                String coupleId = ChatMessage.conversationIdOf(note.getSenderId(), note.getReceiverId());
+                bulk.updateOne(
+                    Query.query(Criteria.where("id").is(note.getId())),
+                    Update.update("coupleId", coupleId != null ? coupleId : "")
+                );
+            }
+            updated += bulk.execute().getModifiedCount();
+            log.debug("Backfilled coupleId on a batch of {} love notes", batch.size());
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,157 @@
+package com.whispersofus.service;
+
+import com.whispersofus.event.CoupleActivityEvent;
+import com.whispersofus.model.LoveNote;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delivers scheduled love notes at their deliverAt time
+ * Notes due within the loading window are held in a {@link HashedTimerWheel}; the window
+ * is reloaded periodically, and the first load after startup also picks up every overdue
+ * note, which is the catch-up after a restart. Delivery claims the note with a
+ * findAndModify on deliveredAt, so a note is delivered exactly once even with several
+ * instances or a reload scheduling it twice. Delivered notes are announced to the
+ * receiver through a {@link CoupleActivityEvent}.
+ */
+@Component
+@Slf4j
+public class LoveNoteDeliveryScheduler {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadBadgeService unreadBadgeService;
+    private final EmotionRollupService emotionRollupService;
+    private final Duration window;
+    private final HashedTimerWheel<String> wheel;
+
+    // Delivery does database work, so it runs off the wheel's tick thread
+    private final ExecutorService deliveryExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "love-note-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Notes currently in the wheel, so reloads do not add them again
+    private final Set<String> scheduledIds = ConcurrentHashMap.newKeySet();
+    private volatile Instant loadedUntil;
+
+    public LoveNoteDeliveryScheduler(MongoTemplate mongoTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     UnreadBadgeService unreadBadgeService,
+                                     EmotionRollupService emotionRollupService,
+                                     @Value("${app.love-notes.delivery.window:1h}") Duration window,
+                                     @Value("${app.love-notes.delivery.tick:1s}") Duration tick,
+                                     @Value("${app.love-notes.delivery.wheel-size:512}") int wheelSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.unreadBadgeService = unreadBadgeService;
+        this.emotionRollupService = emotionRollupService;
+        this.window = window;
+        this.wheel = new HashedTimerWheel<>("love-note-timer-wheel", tick, wheelSize,
+            noteId -> deliveryExecutor.execute(() -> deliver(noteId)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        wheel.start();
+        loadWindow();
+    }
+
+    /**
+     * Schedule a newly created note
+     * Notes beyond the loaded window are picked up by a later reload
+     * @param note The stored note, with its deliverAt set
+     */
+    public void schedule(LoveNote note) {
+        Instant until = loadedUntil;
+        if (until != null && !note.getDeliverAt().isAfter(until)) {
+            add(note.getId(), note.getDeliverAt());
+        }
+    }
+
+    /**
+     * Load every undelivered note due before the end of the next window, overdue ones included
+     * Runs more often than the window length so no note is created past a window that is
+     * never loaded
+     */
+    @Scheduled(fixedDelayString = "${app.love-notes.delivery.reload-interval-ms:600000}",
+               initialDelayString = "${app.love-notes.delivery.reload-interval-ms:600000}")
+    public void loadWindow() {
+        try {
+            Instant horizon = Instant.now().plus(window);
+            Query query = new Query(Criteria.where("deliverAt").lte(horizon).and("deliveredAt").is(null));
+            query.fields().include("id").include("deliverAt");
+
+            List<LoveNote> due = mongoTemplate.find(query, LoveNote.class);
+            due.forEach(note -> add(note.getId(), note.getDeliverAt()));
+            loadedUntil = horizon;
+
+            if (!due.isEmpty()) {
+                log.info("Loaded {} scheduled love notes due before {}", due.size(), horizon);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load scheduled love notes: {}", e.getMessage(), e);
+        }
+    }
+
+    private void add(String noteId, Instant deliverAt) {
+        if (scheduledIds.add(noteId)) {
+            wheel.schedule(noteId, deliverAt.toEpochMilli());
+        }
+    }
+
+    private void deliver(String noteId) {
+        scheduledIds.remove(noteId);
+        try {
+            // Claim the delivery; null means another instance delivered it or it was deleted
+            LoveNote note = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(noteId).and("deliveredAt").is(null)),
+                Update.update("deliveredAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                LoveNote.class
+            );
+            if (note == null) {
+                return;
+            }
+
+            log.info("Delivering scheduled love note {} to {}", noteId, note.getReceiverId());
+            emotionRollupService.noteCreated(note);
+            // Older builds let notes be marked read before delivery; those are not unread
+            if (!note.isRead()) {
+                unreadBadgeService.loveNoteReceived(note.getReceiverId());
+            }
+            eventPublisher.publishEvent(new CoupleActivityEvent(
+                CoupleActivityEvent.Type.LOVE_NOTE_RECEIVED, note.getSenderId(), note.getReceiverId(), note));
+        } catch (Exception e) {
+            // Left undelivered, so the next reload schedules it again
+            log.error("Failed to deliver love note {}: {}", noteId, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        deliveryExecutor.shutdownNow();
+    }
+}
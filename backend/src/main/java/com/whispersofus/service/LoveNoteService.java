@@ -1,15 +1,31 @@
 package com.whispersofus.service;
 
+import com.whispersofus.dto.KeysetCursor;
+import com.whispersofus.event.CoupleActivityEvent;
+import com.whispersofus.model.ChatMessage;
 import com.whispersofus.model.LoveNote;
 import com.whispersofus.model.EmotionTag;
 import com.whispersofus.repository.LoveNoteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,13 +36,30 @@ import java.util.Optional;
 public class LoveNoteService {
     
     private final LoveNoteRepository loveNoteRepository;
+    private final UnreadBadgeService unreadBadgeService;
+    private final SearchIndex searchIndex;
+    private final MongoTemplate mongoTemplate;
+    private final LoveNoteDeliveryScheduler loveNoteDeliveryScheduler;
+    private final EmotionRollupService emotionRollupService;
+    private final PartialUpdater partialUpdater;
+    private final ApplicationEventPublisher eventPublisher;
     
     public LoveNote createLoveNote(String senderId, String receiverId, String content, String emotionTagStr) {
+        return createLoveNote(senderId, receiverId, content, emotionTagStr, null);
+    }
+    
+    /**
+     * Create a love note, delivered right away or at a later time
+     * @param deliverAt When the receiver should get the note, or null to deliver it now
+     */
+    public LoveNote createLoveNote(String senderId, String receiverId, String content, String emotionTagStr,
+                                   Instant deliverAt) {
         log.info("Creating new love note from sender: {} to receiver: {}", senderId, receiverId);
         
         LoveNote loveNote = new LoveNote();
         loveNote.setSenderId(senderId);
         loveNote.setReceiverId(receiverId);
+        loveNote.setCoupleId(ChatMessage.conversationIdOf(senderId, receiverId));
         loveNote.setContent(content);
         
         // Convert string to EmotionTag enum
@@ -40,11 +73,77 @@ public class LoveNoteService {
             }
         }
         
-        return loveNoteRepository.save(loveNote);
+        boolean scheduled = deliverAt != null && deliverAt.isAfter(Instant.now());
+        if (scheduled) {
+            loveNote.setDeliverAt(deliverAt);
+        } else {
+            loveNote.setDeliveredAt(loveNote.getCreatedAt());
+        }
+        
+        LoveNote saved = loveNoteRepository.save(loveNote);
+        searchIndex.indexLoveNote(saved);
+        if (scheduled) {
+            log.info("Love note {} scheduled for delivery at {}", saved.getId(), deliverAt);
+            loveNoteDeliveryScheduler.schedule(saved);
+        } else {
+            // Scheduled notes are counted by the delivery scheduler once they are delivered
+            emotionRollupService.noteCreated(saved);
+            unreadBadgeService.loveNoteReceived(receiverId);
+            eventPublisher.publishEvent(new CoupleActivityEvent(
+                CoupleActivityEvent.Type.LOVE_NOTE_RECEIVED, senderId, receiverId, saved));
+        }
+        return saved;
     }
     
-    public Page<LoveNote> getAllLoveNotes(Pageable pageable) {
-        return loveNoteRepository.findAll(pageable);
+    /**
+     * Load one page of the notes exchanged by a couple, newest first
+     * Served by the couple_created_idx index; the count covers the couple's notes only
+     */
+    public Page<LoveNote> getLoveNotesForCouple(String userId, String partnerId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        Criteria criteria = Criteria.where("coupleId").is(ChatMessage.conversationIdOf(userId, partnerId))
+            .andOperator(visibleTo(userId));
+        
+        List<LoveNote> content = mongoTemplate.find(new Query(criteria).with(pageable), LoveNote.class);
+        long total = mongoTemplate.count(new Query(criteria), LoveNote.class);
+        return new PageImpl<>(content, pageable, total);
+    }
+    
+    /**
+     * Load the notes of a couple older than a cursor, newest first
+     * Uses a range query on (createdAt, id) over couple_created_idx, so the cost depends
+     * only on the slice size and no count query is issued
+     * @param before Position to continue from, or null for the most recent notes
+     * @param limit Maximum number of notes to return
+     */
+    public Slice<LoveNote> getLoveNoteFeed(String userId, String partnerId, KeysetCursor before, int limit) {
+        Criteria criteria = Criteria.where("coupleId").is(ChatMessage.conversationIdOf(userId, partnerId));
+        if (before != null) {
+            criteria.andOperator(visibleTo(userId), new Criteria().orOperator(
+                Criteria.where("createdAt").lt(before.getCreatedAt()),
+                Criteria.where("createdAt").is(before.getCreatedAt()).and("id").lt(new ObjectId(before.getId()))
+            ));
+        } else {
+            criteria.andOperator(visibleTo(userId));
+        }
+        
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+            .limit(limit + 1);
+        List<LoveNote> notes = mongoTemplate.find(query, LoveNote.class);
+        
+        boolean hasNext = notes.size() > limit;
+        List<LoveNote> content = hasNext ? notes.subList(0, limit) : notes;
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+    
+    // Scheduled notes are hidden from the receiver until delivered; the sender always sees them
+    private static Criteria visibleTo(String userId) {
+        return new Criteria().orOperator(
+            Criteria.where("deliverAt").is(null),
+            Criteria.where("deliveredAt").ne(null),
+            Criteria.where("senderId").is(userId)
+        );
     }
     
     public Page<LoveNote> getLoveNotesByReceiver(String receiverId, Pageable pageable) {
@@ -64,29 +163,41 @@ public class LoveNoteService {
     }
     
     public LoveNote markNoteAsRead(String noteId) {
-        Optional<LoveNote> noteOpt = loveNoteRepository.findById(noteId);
-        if (noteOpt.isPresent()) {
-            LoveNote note = noteOpt.get();
-            note.setRead(true);
-            log.info("Marking love note as read: {}", noteId);
-            return loveNoteRepository.save(note);
+        log.info("Marking love note as read: {}", noteId);
+        // Scheduled notes can only be read once delivered, so the badge never counts them twice
+        Optional<LoveNote> updated = partialUpdater.updateIf(LoveNote.class, noteId,
+            Criteria.where("isRead").is(false).orOperator(
+                Criteria.where("deliverAt").is(null),
+                Criteria.where("deliveredAt").ne(null)),
+            new Update().set("isRead", true).set("readAt", LocalDateTime.now()));
+        if (updated.isPresent()) {
+            LoveNote note = updated.get();
+            // Only the request that flipped the flag adjusts the badge
+            unreadBadgeService.loveNotesRead(note.getReceiverId(), 1);
+            return note;
         }
-        throw new RuntimeException("Love note not found with id: " + noteId);
+        return loveNoteRepository.findById(noteId)
+            .orElseThrow(() -> new RuntimeException("Love note not found with id: " + noteId));
     }
     
     public LoveNote addReaction(String noteId, String emoji) {
-        Optional<LoveNote> noteOpt = loveNoteRepository.findById(noteId);
-        if (noteOpt.isPresent()) {
-            LoveNote note = noteOpt.get();
-            note.setReactionEmoji(emoji);
-            log.info("Adding reaction to love note: {}", noteId);
-            return loveNoteRepository.save(note);
-        }
-        throw new RuntimeException("Love note not found with id: " + noteId);
+        log.info("Adding reaction to love note: {}", noteId);
+        return partialUpdater.update(LoveNote.class, noteId, new Update().set("reactionEmoji", emoji))
+            .orElseThrow(() -> new RuntimeException("Love note not found with id: " + noteId));
     }
     
     public void deleteLoveNote(String noteId) {
         log.info("Deleting love note: {}", noteId);
-        loveNoteRepository.deleteById(noteId);
+        LoveNote removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(noteId)), LoveNote.class);
+        searchIndex.remove(noteId);
+        // Undelivered notes were never counted in the rollups or as unread
+        if (removed == null || !removed.isDelivered()) {
+            return;
+        }
+        
+        emotionRollupService.noteDeleted(removed);
+        if (!removed.isRead()) {
+            unreadBadgeService.loveNotesRead(removed.getReceiverId(), 1);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.whispersofus.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Field-level updates of single documents in one round trip
+ * Replaces findById → mutate → save: the update is applied server-side with
+ * findAndModify, so only the changed fields are sent, the whole document is never
+ * rewritten and concurrent updates of other fields are not lost. Accepts both
+ * classic updates ($set, $inc, ...) and aggregation pipeline updates.
+ */
+@Component
+@RequiredArgsConstructor
+public class PartialUpdater {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Apply an update to a document
+     * @param type The document class
+     * @param id The document ID
+     * @param update The fields to change
+     * @return The updated document, or empty if it does not exist
+     */
+    public <T> Optional<T> update(Class<T> type, String id, UpdateDefinition update) {
+        return updateIf(type, id, null, update);
+    }
+
+    /**
+     * Apply an update to a document only if it matches a condition
+     * Useful for state transitions such as unread → read that must happen once
+     * @param type The document class
+     * @param id The document ID
+     * @param condition Additional criteria the document must match, or null
+     * @param update The fields to change
+     * @return The updated document, or empty if it does not exist or did not match
+     */
+    public <T> Optional<T> updateIf(Class<T> type, String id, Criteria condition, UpdateDefinition update) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        if (condition != null) {
+            query.addCriteria(condition);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+            query, update, FindAndModifyOptions.options().returnNew(true), type));
+    }
+}
@@ -0,0 +1,92 @@
+package com.whispersofus.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.whispersofus.model.UserPartner;
+import com.whispersofus.repository.UserPartnerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory directory of active partnerships
+ * Keeps a bidirectional userId <-> partnerId map so resolving the default receiver
+ * of a chat message or love note is a constant-time lookup without a database call
+ */
+@Component
+@Slf4j
+public class PartnerResolver {
+
+    private final UserPartnerRepository userPartnerRepository;
+
+    private final Map<String, String> partnerIds = new ConcurrentHashMap<>();
+    // Users without a partner are remembered for a while so repeated lookups skip the database;
+    // the expiry picks up partnerships created on another backend instance
+    private final Cache<String, Boolean> noPartner;
+
+    public PartnerResolver(UserPartnerRepository userPartnerRepository,
+                           @Value("${app.cache.no-partner.max-size:10000}") long maxSize,
+                           @Value("${app.cache.no-partner.ttl:1m}") Duration ttl) {
+        this.userPartnerRepository = userPartnerRepository;
+        this.noPartner = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Load every existing partnership once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<UserPartner> partnerships = userPartnerRepository.findAll();
+        partnerships.forEach(this::register);
+        log.info("Partner directory warmed with {} partnerships", partnerships.size());
+    }
+
+    /**
+     * Record a partnership in both directions
+     * @param partnership The partnership to register
+     */
+    public void register(UserPartner partnership) {
+        partnerIds.put(partnership.getUser1Id(), partnership.getUser2Id());
+        partnerIds.put(partnership.getUser2Id(), partnership.getUser1Id());
+        noPartner.invalidate(partnership.getUser1Id());
+        noPartner.invalidate(partnership.getUser2Id());
+    }
+
+    /**
+     * Resolve the partner of a user
+     * Partnerships created by another backend instance are picked up from the
+     * database on the first miss and served from memory afterwards. A miss is cached
+     * too, so a user without a partner costs at most one query per cache TTL.
+     * @param userId The ID of the user
+     * @return Optional containing the partner's user ID if the user has a partner
+     */
+    public Optional<String> findPartnerId(String userId) {
+        String partnerId = partnerIds.get(userId);
+        if (partnerId != null) {
+            return Optional.of(partnerId);
+        }
+
+        if (noPartner.getIfPresent(userId) != null) {
+            return Optional.empty();
+        }
+
+        Optional<UserPartner> partnership = userPartnerRepository.findByUserId(userId);
+        if (partnership.isPresent()) {
+            register(partnership.get());
+        } else {
+            noPartner.put(userId, Boolean.TRUE);
+        }
+        return partnership.map(p -> p.getPartnerOf(userId));
+    }
+}
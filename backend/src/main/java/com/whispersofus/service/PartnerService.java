@@ -28,6 +28,7 @@ public class PartnerService {
     private final PartnerRequestRepository partnerRequestRepository;
     private final UserPartnerRepository userPartnerRepository;
     private final UserRepository userRepository;
+    private final PartnerResolver partnerResolver;
     
     /**
      * Send a partner request from one user to another
@@ -122,7 +123,7 @@ public class PartnerService {
             
             // Create the partnership
             UserPartner userPartner = new UserPartner(partnerRequest.getSenderId(), partnerRequest.getReceiverId());
-            userPartnerRepository.save(userPartner);
+            partnerResolver.register(userPartnerRepository.save(userPartner));
             
             log.info("Partnership created between {} and {}", partnerRequest.getSenderId(), partnerRequest.getReceiverId());
         } else {
@@ -141,20 +142,8 @@ public class PartnerService {
     public Optional<User> getPartner(String userId) {
         log.debug("Getting partner for user {}", userId);
         
-        Optional<UserPartner> partnershipOpt = userPartnerRepository.findByUserId(userId);
-        if (partnershipOpt.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        UserPartner partnership = partnershipOpt.get();
-        String partnerId = partnership.getPartnerOf(userId);
-        
-        if (partnerId == null) {
-            log.warn("Invalid partnership data for user {}", userId);
-            return Optional.empty();
-        }
-        
-        return userRepository.findById(partnerId);
+        return partnerResolver.findPartnerId(userId)
+                .flatMap(userRepository::findById);
     }
     
     /**
@@ -193,7 +182,7 @@ public class PartnerService {
      * @return true if the user has a partner, false otherwise
      */
     public boolean hasPartner(String userId) {
-        return userPartnerRepository.existsByUserId(userId);
+        return partnerResolver.findPartnerId(userId).isPresent();
     }
     
     /**
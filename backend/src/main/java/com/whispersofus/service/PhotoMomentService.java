@@ -8,6 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.BooleanOperators;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +24,7 @@ import java.util.Optional;
 public class PhotoMomentService {
     
     private final PhotoMomentRepository photoMomentRepository;
+    private final PartialUpdater partialUpdater;
     
     public PhotoMoment createPhotoMoment(String photoUrl, String caption, String location, LocalDateTime takenAt) {
         log.info("Creating new photo moment with URL: {}", photoUrl);
@@ -58,15 +61,14 @@ public class PhotoMomentService {
     }
     
     public PhotoMoment toggleFavorite(String id) {
-        Optional<PhotoMoment> photoOpt = photoMomentRepository.findById(id);
-        if (photoOpt.isPresent()) {
-            PhotoMoment photo = photoOpt.get();
-            photo.setFavorite(!photo.isFavorite());
-            
-            log.info("Toggling favorite status for photo: {} to {}", id, photo.isFavorite());
-            return photoMomentRepository.save(photo);
-        }
-        throw new RuntimeException("Photo moment not found with id: " + id);
+        // Flipped server-side with a pipeline update, so concurrent toggles cannot cancel out
+        AggregationUpdate toggle = AggregationUpdate.update()
+            .set("isFavorite").toValue(BooleanOperators.Not.not("isFavorite"));
+        PhotoMoment photo = partialUpdater.update(PhotoMoment.class, id, toggle)
+            .orElseThrow(() -> new RuntimeException("Photo moment not found with id: " + id));
+        
+        log.info("Toggling favorite status for photo: {} to {}", id, photo.isFavorite());
+        return photo;
     }
     
     public PhotoMoment updatePhotoMoment(String id, String photoUrl, String caption, String location, LocalDateTime takenAt) {
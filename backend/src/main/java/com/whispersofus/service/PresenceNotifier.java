@@ -0,0 +1,35 @@
+package com.whispersofus.service;
+
+import com.whispersofus.event.PresenceChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes presence changes to the partner's /queue/presence destination
+ * Kept apart from PresenceRegistry so the registry does not depend on the messaging
+ * template, which is itself built from the WebSocket configuration
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceNotifier {
+
+    public static final String PRESENCE_DESTINATION = "/queue/presence";
+
+    private final PresenceRegistry presenceRegistry;
+    private final PartnerResolver partnerResolver;
+    private final CoupleMessagingService coupleMessagingService;
+
+    @EventListener
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        try {
+            partnerResolver.findPartnerId(event.getUserId()).ifPresent(partnerId ->
+                coupleMessagingService.sendToUser(partnerId, PRESENCE_DESTINATION,
+                    presenceRegistry.getPresence(event.getUserId())));
+        } catch (Exception e) {
+            log.error("Failed to push presence of user {}: {}", event.getUserId(), e.getMessage(), e);
+        }
+    }
+}
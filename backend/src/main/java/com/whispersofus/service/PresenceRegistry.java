@@ -0,0 +1,158 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.PresenceResponse;
+import com.whispersofus.event.PresenceChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which users have an open STOMP session, entirely in memory
+ * Sessions are added on SessionConnectedEvent and removed on SessionDisconnectEvent, and
+ * every inbound frame (heartbeats included) refreshes the session's timestamp. Sessions
+ * that stop heartbeating without a disconnect are swept after a timeout. A
+ * PresenceChangedEvent is published when a user goes from zero to one session or back.
+ */
+@Component
+@Slf4j
+public class PresenceRegistry {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration sessionTimeout;
+
+    // userId -> sessionId -> last heartbeat (epoch millis)
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+    // userId -> time the last session ended
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+    public PresenceRegistry(ApplicationEventPublisher eventPublisher,
+                            @Value("${app.presence.session-timeout:60s}") Duration sessionTimeout) {
+        this.eventPublisher = eventPublisher;
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal principal = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (principal == null || sessionId == null) {
+            return;
+        }
+
+        String userId = principal.getName();
+        long now = System.currentTimeMillis();
+        boolean[] cameOnline = {false};
+        sessionUsers.put(sessionId, userId);
+        sessions.compute(userId, (id, userSessions) -> {
+            if (userSessions == null) {
+                userSessions = new ConcurrentHashMap<>();
+                cameOnline[0] = true;
+            }
+            userSessions.put(sessionId, now);
+            return userSessions;
+        });
+
+        if (cameOnline[0]) {
+            publish(userId, true, now);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        remove(event.getSessionId());
+    }
+
+    /**
+     * Refresh the heartbeat of a session
+     * Called for every inbound frame, so it only touches the session's own entry
+     * @param sessionId The WebSocket session ID
+     */
+    public void touch(String sessionId) {
+        String userId = sessionUsers.get(sessionId);
+        if (userId == null) {
+            return;
+        }
+        Map<String, Long> userSessions = sessions.get(userId);
+        if (userSessions != null) {
+            userSessions.replace(sessionId, System.currentTimeMillis());
+        }
+    }
+
+    public boolean isOnline(String userId) {
+        return sessions.containsKey(userId);
+    }
+
+    /**
+     * Current presence of a user
+     * @param userId The database ID of the user
+     * @return Presence snapshot; lastSeenAt is null if the user was never seen
+     */
+    public PresenceResponse getPresence(String userId) {
+        Map<String, Long> userSessions = sessions.get(userId);
+        if (userSessions != null && !userSessions.isEmpty()) {
+            long latest = userSessions.values().stream().mapToLong(Long::longValue).max().orElse(0);
+            return new PresenceResponse(userId, true, userSessions.size(), toLocalDateTime(latest));
+        }
+        Long seen = lastSeen.get(userId);
+        return new PresenceResponse(userId, false, 0, seen != null ? toLocalDateTime(seen) : null);
+    }
+
+    // Sessions dropped without a DISCONNECT (e.g. a killed mobile app) stop heartbeating
+    @Scheduled(fixedDelayString = "${app.presence.sweep-interval-ms:15000}")
+    public void sweepStaleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTimeout.toMillis();
+        sessions.forEach((userId, userSessions) -> userSessions.forEach((sessionId, heartbeat) -> {
+            if (heartbeat < cutoff) {
+                log.debug("Removing stale session {} of user {}", sessionId, userId);
+                remove(sessionId);
+            }
+        }));
+    }
+
+    private void remove(String sessionId) {
+        String userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean[] wentOffline = {false};
+        sessions.computeIfPresent(userId, (id, userSessions) -> {
+            userSessions.remove(sessionId);
+            if (userSessions.isEmpty()) {
+                wentOffline[0] = true;
+                return null;
+            }
+            return userSessions;
+        });
+
+        if (wentOffline[0]) {
+            lastSeen.put(userId, now);
+            publish(userId, false, now);
+        }
+    }
+
+    private void publish(String userId, boolean online, long at) {
+        log.debug("User {} is now {}", userId, online ? "online" : "offline");
+        eventPublisher.publishEvent(new PresenceChangedEvent(userId, online, toLocalDateTime(at)));
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
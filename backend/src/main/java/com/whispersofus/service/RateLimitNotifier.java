@@ -0,0 +1,33 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.ApiResponse;
+import com.whispersofus.event.RateLimitedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells a user on /queue/errors that one of their STOMP frames was dropped
+ * Kept apart from the channel interceptor, which is wired into the WebSocket
+ * configuration the messaging template is built from
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitNotifier {
+
+    public static final String ERRORS_DESTINATION = "/queue/errors";
+
+    private final CoupleMessagingService coupleMessagingService;
+
+    @EventListener
+    public void onRateLimited(RateLimitedEvent event) {
+        try {
+            coupleMessagingService.sendToUser(event.getUserId(), ERRORS_DESTINATION,
+                new ApiResponse<>(false, "Rate limit exceeded", event));
+        } catch (Exception e) {
+            log.error("Failed to notify user {} of rate limiting: {}", event.getUserId(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.whispersofus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token-bucket rate limiter keyed by user and endpoint class
+ * Each bucket is a single AtomicLong holding the instant at which it would be full
+ * again (the GCRA form of a token bucket), so acquiring a token is one CAS with no
+ * locks. Buckets that have refilled completely carry no state and are dropped by a
+ * periodic sweep.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    /**
+     * Groups of endpoints sharing one budget per user
+     */
+    public enum EndpointClass {
+        // Chat messages over STOMP or POST /chat/send
+        CHAT_MESSAGE("chat-message"),
+        // Typing start/stop frames and read receipts
+        TYPING("typing"),
+        // Other REST writes: love notes, wishes, surprises, photos, ...
+        WRITE("write");
+
+        private final String tag;
+
+        EndpointClass(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Map<String, AtomicLong>> buckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejections = new EnumMap<>(EndpointClass.class);
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${app.rate-limit.chat-message.per-second:5}") double chatPerSecond,
+                       @Value("${app.rate-limit.chat-message.burst:20}") int chatBurst,
+                       @Value("${app.rate-limit.typing.per-second:10}") double typingPerSecond,
+                       @Value("${app.rate-limit.typing.burst:20}") int typingBurst,
+                       @Value("${app.rate-limit.write.per-second:2}") double writePerSecond,
+                       @Value("${app.rate-limit.write.burst:10}") int writeBurst) {
+        this.enabled = enabled;
+        limits.put(EndpointClass.CHAT_MESSAGE, new Limit(chatPerSecond, chatBurst));
+        limits.put(EndpointClass.TYPING, new Limit(typingPerSecond, typingBurst));
+        limits.put(EndpointClass.WRITE, new Limit(writePerSecond, writeBurst));
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new ConcurrentHashMap<>());
+            rejections.put(endpointClass, Counter.builder("ratelimit.rejected")
+                .description("Requests rejected by the per-user rate limiter")
+                .tag("class", endpointClass.getTag())
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Take one token from a user's bucket
+     * @param endpointClass The endpoint class being called
+     * @param key The caller, usually the Firebase UID
+     * @return True if the call may proceed, false if it is over the limit
+     */
+    public boolean tryAcquire(EndpointClass endpointClass, String key) {
+        return tryAcquireOrWait(endpointClass, key) == 0;
+    }
+
+    /**
+     * Take one token, or tell how long until one becomes available
+     * @param endpointClass The endpoint class being called
+     * @param key The caller, usually the Firebase UID
+     * @return 0 if a token was taken, otherwise the nanoseconds to wait before retrying
+     */
+    public long tryAcquireOrWait(EndpointClass endpointClass, String key) {
+        if (!enabled || key == null) {
+            return 0;
+        }
+
+        Limit limit = limits.get(endpointClass);
+        AtomicLong bucket = buckets.get(endpointClass).computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.get();
+            // A bucket that is already full starts from now; each token pushes "full" one interval out
+            long base = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+            long next = base + limit.intervalNanos;
+            long wait = next - now - limit.capacityNanos;
+            if (wait > 0) {
+                rejections.get(endpointClass).increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they behave exactly like new ones
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void sweepIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().forEach(byKey ->
+            byKey.entrySet().removeIf(entry -> entry.getValue().get() - now < 0));
+    }
+
+    /**
+     * Whole seconds a client should wait, rounded up, for a Retry-After header
+     * @param waitNanos Wait returned by {@link #tryAcquireOrWait}
+     * @return At least one second
+     */
+    public static long toRetryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    // Refill interval per token and the burst expressed as time
+    private static final class Limit {
+        private final long intervalNanos;
+        private final long capacityNanos;
+
+        private Limit(double perSecond, int burst) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            this.capacityNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.ReadReceipt;
+import com.whispersofus.model.ChatMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses read receipts of a reader into one "read up to X" event per flush window
+ * The first receipt of a reader schedules a flush; receipts arriving before it only move
+ * the pending message forward. A flush marks the conversation read up to that message with
+ * one updateMany and one watermark write, then pushes a single receipt to the partner.
+ */
+@Component
+@Slf4j
+public class ReadReceiptCoalescer {
+
+    public static final String RECEIPTS_DESTINATION = "/queue/receipts";
+
+    private final ChatMessageService chatMessageService;
+    private final CoupleMessagingService coupleMessagingService;
+    private final PartnerResolver partnerResolver;
+    private final MongoTemplate mongoTemplate;
+    private final Duration flushDelay;
+
+    // Reader ID -> newest message ID reported since the last flush
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    // Readers with a flush scheduled
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-receipt-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReadReceiptCoalescer(ChatMessageService chatMessageService,
+                                CoupleMessagingService coupleMessagingService,
+                                PartnerResolver partnerResolver,
+                                MongoTemplate mongoTemplate,
+                                @Value("${app.chat.read-receipts.flush-delay:500ms}") Duration flushDelay) {
+        this.chatMessageService = chatMessageService;
+        this.coupleMessagingService = coupleMessagingService;
+        this.partnerResolver = partnerResolver;
+        this.mongoTemplate = mongoTemplate;
+        this.flushDelay = flushDelay;
+    }
+
+    /**
+     * Record that a user has seen a message
+     * @param readerId The database ID of the reading user
+     * @param messageId The ID of the newest message the user has seen
+     */
+    public void read(String readerId, String messageId) {
+        if (messageId == null || !ObjectId.isValid(messageId)) {
+            return;
+        }
+
+        pending.merge(readerId, messageId, ReadReceiptCoalescer::newer);
+        // Only the receipt that opens a window schedules its flush
+        if (scheduled.add(readerId)) {
+            scheduler.schedule(() -> flush(readerId), flushDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ObjectIds order by creation time, so the larger one is the newer message
+    private static String newer(String current, String reported) {
+        return new ObjectId(reported).compareTo(new ObjectId(current)) > 0 ? reported : current;
+    }
+
+    private void flush(String readerId) {
+        // Leave the window before taking the pending receipt, so a receipt arriving
+        // in between either lands in this flush or schedules the next one
+        scheduled.remove(readerId);
+        String messageId = pending.remove(readerId);
+        if (messageId == null) {
+            return;
+        }
+
+        try {
+            String partnerId = partnerResolver.findPartnerId(readerId).orElse(null);
+            if (partnerId == null) {
+                return;
+            }
+
+            LocalDateTime upTo = createdAtOf(messageId, ChatMessage.conversationIdOf(readerId, partnerId));
+            long readCount = chatMessageService.markConversationReadUpTo(readerId, partnerId, upTo, messageId);
+            if (readCount > 0) {
+                coupleMessagingService.sendToUser(partnerId, RECEIPTS_DESTINATION,
+                    new ReadReceipt(readerId, messageId, upTo, readCount));
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush read receipt of {} up to {}: {}", readerId, messageId, e.getMessage(), e);
+        }
+    }
+
+    // Exact creation time of the message; one still queued for write-behind falls back
+    // to its id timestamp, which may leave messages of that same second unread
+    private LocalDateTime createdAtOf(String messageId, String conversationId) {
+        Query query = Query.query(Criteria.where("id").is(messageId).and("conversationId").is(conversationId));
+        query.fields().include("createdAt");
+        ChatMessage message = mongoTemplate.findOne(query, ChatMessage.class);
+        if (message != null) {
+            return message.getCreatedAt();
+        }
+        return LocalDateTime.ofInstant(new ObjectId(messageId).getDate().toInstant(), ZoneId.systemDefault());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
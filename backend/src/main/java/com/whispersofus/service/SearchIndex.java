@@ -0,0 +1,406 @@
+package com.whispersofus.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whispersofus.model.ArchivedChatMessage;
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.ChatMessageBucket;
+import com.whispersofus.model.LoveNote;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process inverted index over chat messages and love notes
+ * Text is lowercased and split on anything that is not a letter or digit. Posting lists
+ * are kept per conversation (the couple key of ChatMessage.conversationIdOf), so a
+ * search only ever touches the searching couple's postings. The index is written to a
+ * gzip JSON snapshot periodically; on startup the snapshot is loaded and everything
+ * created since is replayed from MongoDB, or the index is rebuilt if there is none.
+ */
+@Component
+@Slf4j
+public class SearchIndex {
+
+    public enum DocumentType {
+        CHAT_MESSAGE,
+        LOVE_NOTE
+    }
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Replay a little before the snapshot to cover writes still in flight when it was taken
+    private static final Duration REPLAY_OVERLAP = Duration.ofMinutes(5);
+
+    private final MongoTemplate mongoTemplate;
+    private final Path snapshotPath;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, ConversationIndex> conversations = new ConcurrentHashMap<>();
+    // documentId -> conversationId, so deletes by ID find their posting lists
+    private final Map<String, String> documentConversations = new ConcurrentHashMap<>();
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private volatile boolean loaded;
+
+    public SearchIndex(MongoTemplate mongoTemplate,
+                       @Value("${app.search.snapshot-path:data/search-index.json.gz}") String snapshotPath) {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotPath = Paths.get(snapshotPath);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread loader = new Thread(this::load, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public void indexChatMessage(ChatMessage message) {
+        add(DocumentType.CHAT_MESSAGE, message.getId(), message.getConversationId(),
+            message.getCreatedAt(), message.getContent());
+    }
+
+    public void indexLoveNote(LoveNote note) {
+        add(DocumentType.LOVE_NOTE, note.getId(), ChatMessage.conversationIdOf(note.getSenderId(), note.getReceiverId()),
+            note.getCreatedAt(), note.getContent());
+    }
+
+    /**
+     * Remove a document from the index
+     * @param documentId The ID of the chat message or love note
+     */
+    public void remove(String documentId) {
+        String conversationId = documentConversations.remove(documentId);
+        ConversationIndex index = conversationId != null ? conversations.get(conversationId) : null;
+        if (index != null && index.remove(documentId)) {
+            pendingChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove every document of one type in a conversation
+     * @param conversationId The conversation key
+     * @param type The document type to drop
+     */
+    public void removeConversation(String conversationId, DocumentType type) {
+        ConversationIndex index = conversations.get(conversationId);
+        if (index != null) {
+            index.removeAll(type).forEach(documentConversations::remove);
+            pendingChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Search a conversation
+     * Every query term must occur in a document. Hits are ranked by tf-idf within the
+     * conversation, normalized by document length, with newer documents first on ties.
+     * @param conversationId The conversation key
+     * @param query Free text query
+     * @param type Restrict to one document type, or null for all
+     * @param offset Number of hits to skip
+     * @param limit Maximum number of hits to return
+     * @return The requested window of hits and the total number of hits
+     */
+    public Result search(String conversationId, String query, DocumentType type, int offset, int limit) {
+        ConversationIndex index = conversations.get(conversationId);
+        Set<String> terms = new LinkedHashSet<>(tokenize(query).keySet());
+        if (index == null || terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        List<Hit> hits = index.search(terms, type);
+        List<Hit> window = offset >= hits.size()
+            ? List.of()
+            : hits.subList(offset, Math.min(hits.size(), offset + limit));
+        return new Result(new ArrayList<>(window), hits.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Scheduled(initialDelayString = "${app.search.snapshot-interval-ms:300000}",
+               fixedDelayString = "${app.search.snapshot-interval-ms:300000}")
+    public void writeSnapshot() {
+        if (!loaded || pendingChanges.get() == 0) {
+            return;
+        }
+
+        long changes = pendingChanges.get();
+        long takenAt = System.currentTimeMillis();
+        List<IndexedDocument> documents = new ArrayList<>();
+        conversations.values().forEach(index -> documents.addAll(index.documents()));
+
+        try {
+            Path directory = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "search-index", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                objectMapper.writeValue(out, new Snapshot(takenAt, documents));
+            }
+            try {
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            pendingChanges.addAndGet(-changes);
+            log.info("Wrote search index snapshot with {} documents to {}", documents.size(), snapshotPath);
+        } catch (IOException e) {
+            log.error("Failed to write search index snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    private void load() {
+        try {
+            Snapshot snapshot = readSnapshot();
+            if (snapshot != null) {
+                snapshot.getDocuments().forEach(this::addIndexed);
+                LocalDateTime since = toLocalDateTime(snapshot.getTakenAt()).minus(REPLAY_OVERLAP);
+                long replayed = replay(Criteria.where("createdAt").gte(since), false);
+                log.info("Loaded search index snapshot with {} documents, replayed {} newer documents",
+                    snapshot.getDocuments().size(), replayed);
+            } else {
+                long indexed = replay(new Criteria(), true);
+                pendingChanges.incrementAndGet();
+                log.info("Built search index from {} documents", indexed);
+            }
+            loaded = true;
+        } catch (Exception e) {
+            log.error("Failed to load search index: {}", e.getMessage(), e);
+        }
+    }
+
+    private Snapshot readSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(snapshotPath))) {
+            return objectMapper.readValue(in, Snapshot.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable search index snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private long replay(Criteria criteria, boolean includeArchive) {
+        AtomicLong count = new AtomicLong();
+        try (Stream<ChatMessage> messages = mongoTemplate.stream(new Query(criteria), ChatMessage.class)) {
+            messages.forEach(message -> {
+                indexChatMessage(message);
+                count.incrementAndGet();
+            });
+        }
+        try (Stream<LoveNote> notes = mongoTemplate.stream(new Query(criteria), LoveNote.class)) {
+            notes.forEach(note -> {
+                indexLoveNote(note);
+                count.incrementAndGet();
+            });
+        }
+        // Archived messages were indexed while still hot, so only a full rebuild reads the buckets
+        if (includeArchive) {
+            try (Stream<ChatMessageBucket> buckets = mongoTemplate.stream(new Query(), ChatMessageBucket.class)) {
+                buckets.forEach(bucket -> {
+                    for (ArchivedChatMessage message : bucket.getMessages()) {
+                        indexChatMessage(message.toChatMessage(bucket.getConversationId()));
+                        count.incrementAndGet();
+                    }
+                });
+            }
+        }
+        return count.get();
+    }
+
+    private void add(DocumentType type, String id, String conversationId, LocalDateTime createdAt, String text) {
+        if (id == null || conversationId == null || text == null) {
+            return;
+        }
+        long createdAtMillis = createdAt != null ? createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        addIndexed(new IndexedDocument(type, id, conversationId, createdAtMillis, tokenize(text)));
+        pendingChanges.incrementAndGet();
+    }
+
+    private void addIndexed(IndexedDocument document) {
+        documentConversations.put(document.getId(), document.getConversationId());
+        conversations.computeIfAbsent(document.getConversationId(), id -> new ConversationIndex()).add(document);
+    }
+
+    // Lowercased terms with their frequencies
+    private static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                terms.merge(token, 1, Integer::sum);
+            }
+        }
+        return terms;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Posting lists and documents of a single conversation
+     */
+    private static final class ConversationIndex {
+        private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+        private final Map<String, IndexedDocument> documents = new HashMap<>();
+
+        synchronized void add(IndexedDocument document) {
+            remove(document.getId());
+            documents.put(document.getId(), document);
+            document.getTerms().forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.getId(), frequency));
+        }
+
+        synchronized boolean remove(String documentId) {
+            IndexedDocument document = documents.remove(documentId);
+            if (document == null) {
+                return false;
+            }
+            document.getTerms().keySet().forEach(term -> {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(documentId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            });
+            return true;
+        }
+
+        synchronized List<String> removeAll(DocumentType type) {
+            List<String> ids = documents.values().stream()
+                .filter(document -> document.getType() == type)
+                .map(IndexedDocument::getId)
+                .toList();
+            ids.forEach(this::remove);
+            return ids;
+        }
+
+        synchronized List<IndexedDocument> documents() {
+            return new ArrayList<>(documents.values());
+        }
+
+        synchronized List<Hit> search(Set<String> terms, DocumentType type) {
+            List<Map<String, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            // Intersect starting from the rarest term
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            int documentCount = documents.size();
+            List<Hit> hits = new ArrayList<>();
+            for (String documentId : lists.get(0).keySet()) {
+                IndexedDocument document = documents.get(documentId);
+                if (type != null && document.getType() != type) {
+                    continue;
+                }
+                double score = 0;
+                boolean matchesAll = true;
+                for (Map<String, Integer> posting : lists) {
+                    Integer frequency = posting.get(documentId);
+                    if (frequency == null) {
+                        matchesAll = false;
+                        break;
+                    }
+                    score += frequency * Math.log(1 + (double) documentCount / posting.size());
+                }
+                if (matchesAll) {
+                    int length = document.getTerms().values().stream().mapToInt(Integer::intValue).sum();
+                    hits.add(new Hit(document.getType(), documentId, score / Math.sqrt(length),
+                        toLocalDateTime(document.getCreatedAt())));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                .thenComparing(Hit::getCreatedAt, Comparator.reverseOrder()));
+            return hits;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexedDocument {
+        private DocumentType type;
+        private String id;
+        private String conversationId;
+        private long createdAt;
+        private Map<String, Integer> terms;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Snapshot {
+        private long takenAt;
+        private List<IndexedDocument> documents;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+        private final DocumentType type;
+        private final String id;
+        private final double score;
+        private final LocalDateTime createdAt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final List<Hit> hits;
+        private final long total;
+    }
+}
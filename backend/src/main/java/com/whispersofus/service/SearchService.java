@@ -0,0 +1,104 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.SearchResult;
+import com.whispersofus.model.ChatMessage;
+import com.whispersofus.model.LoveNote;
+import com.whispersofus.repository.ChatMessageRepository;
+import com.whispersofus.repository.LoveNoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchService {
+
+    // Unresolved hits younger than this are kept; they may not be persisted yet
+    private static final Duration STALE_HIT_GRACE = Duration.ofMinutes(10);
+
+    private final SearchIndex searchIndex;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageArchive chatMessageArchive;
+    private final LoveNoteRepository loveNoteRepository;
+
+    /**
+     * Search the chat messages and love notes shared by a couple
+     * Hits are loaded from the database so results always show the current content;
+     * hits whose document no longer exists are skipped, and dropped from the index once
+     * they are older than any pending write
+     * @param userId The ID of the searching user
+     * @param partnerId The ID of their partner
+     * @param query Free text query
+     * @param type Restrict to one document type, or null for all
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return Page of results, best match first
+     */
+    public Page<SearchResult> search(String userId, String partnerId, String query,
+                                     SearchIndex.DocumentType type, int page, int size) {
+        SearchIndex.Result result = searchIndex.search(
+            ChatMessage.conversationIdOf(userId, partnerId), query, type, Math.multiplyExact(page, size), size);
+
+        List<String> messageIds = idsOf(result.getHits(), SearchIndex.DocumentType.CHAT_MESSAGE);
+        List<String> noteIds = idsOf(result.getHits(), SearchIndex.DocumentType.LOVE_NOTE);
+        Map<String, ChatMessage> messages = chatMessageRepository.findAllById(messageIds).stream()
+            .collect(Collectors.toMap(ChatMessage::getId, Function.identity()));
+        Map<String, LoveNote> notes = loveNoteRepository.findAllById(noteIds).stream()
+            .collect(Collectors.toMap(LoveNote::getId, Function.identity()));
+
+        List<SearchResult> content = new ArrayList<>(result.getHits().size());
+        for (SearchIndex.Hit hit : result.getHits()) {
+            ChatMessage message = null;
+            LoveNote note = null;
+            if (hit.getType() == SearchIndex.DocumentType.CHAT_MESSAGE) {
+                message = messages.get(hit.getId());
+                if (message == null) {
+                    message = chatMessageArchive.findMessage(hit.getId()).orElse(null);
+                }
+            } else {
+                note = notes.get(hit.getId());
+                if (note != null && !note.isDelivered() && !userId.equals(note.getSenderId())) {
+                    // Scheduled note the searching user is not supposed to see yet
+                    continue;
+                }
+            }
+
+            if (message == null && note == null) {
+                // A recent miss may be a chat message still waiting in the write-behind queue
+                if (olderThanGrace(hit.getId())) {
+                    log.debug("Dropping stale search hit {}", hit.getId());
+                    searchIndex.remove(hit.getId());
+                }
+                continue;
+            }
+            content.add(new SearchResult(hit.getType(), hit.getId(), hit.getScore(), hit.getCreatedAt(), message, note));
+        }
+
+        return new PageImpl<>(content, PageRequest.of(page, size), result.getTotal());
+    }
+
+    private static boolean olderThanGrace(String id) {
+        return ObjectId.isValid(id)
+            && new ObjectId(id).getDate().toInstant().isBefore(Instant.now().minus(STALE_HIT_GRACE));
+    }
+
+    private List<String> idsOf(List<SearchIndex.Hit> hits, SearchIndex.DocumentType type) {
+        return hits.stream()
+            .filter(hit -> hit.getType() == type)
+            .map(SearchIndex.Hit::getId)
+            .toList();
+    }
+}
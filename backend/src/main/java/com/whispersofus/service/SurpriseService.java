@@ -1,13 +1,18 @@
 package com.whispersofus.service;
 
+import com.whispersofus.event.CoupleActivityEvent;
 import com.whispersofus.model.Surprise;
 import com.whispersofus.model.ContentType;
 import com.whispersofus.repository.SurpriseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +23,8 @@ import java.util.Optional;
 public class SurpriseService {
     
     private final SurpriseRepository surpriseRepository;
+    private final PartialUpdater partialUpdater;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Surprise createSurprise(String creatorId, String title, String description, 
                                  String unlockCondition, String contentUrl, String contentTypeStr) {
@@ -41,7 +48,10 @@ public class SurpriseService {
             }
         }
         
-        return surpriseRepository.save(surprise);
+        Surprise saved = surpriseRepository.save(surprise);
+        eventPublisher.publishEvent(new CoupleActivityEvent(
+            CoupleActivityEvent.Type.SURPRISE_CREATED, creatorId, null, saved));
+        return saved;
     }
     
     public List<Surprise> getAllSurprises() {
@@ -69,19 +79,28 @@ public class SurpriseService {
     }
     
     public Surprise unlockSurprise(String surpriseId) {
-        Optional<Surprise> surpriseOpt = surpriseRepository.findById(surpriseId);
-        if (surpriseOpt.isPresent()) {
-            Surprise surprise = surpriseOpt.get();
-            if (!surprise.isUnlocked()) {
-                surprise.setUnlocked(true);
-                log.info("Unlocking surprise: {}", surpriseId);
-                return surpriseRepository.save(surprise);
-            } else {
-                log.warn("Surprise {} is already unlocked", surpriseId);
-                return surprise;
-            }
+        return unlockSurprise(surpriseId, null);
+    }
+    
+    /**
+     * Unlock a surprise and tell its creator
+     * @param unlockedBy The ID of the user unlocking it, or null if unknown
+     */
+    public Surprise unlockSurprise(String surpriseId, String unlockedBy) {
+        Optional<Surprise> unlocked = partialUpdater.updateIf(Surprise.class, surpriseId,
+            Criteria.where("isUnlocked").is(false),
+            new Update().set("isUnlocked", true).set("unlockDate", LocalDateTime.now()));
+        if (unlocked.isPresent()) {
+            log.info("Unlocking surprise: {}", surpriseId);
+            eventPublisher.publishEvent(new CoupleActivityEvent(
+                CoupleActivityEvent.Type.SURPRISE_UNLOCKED, unlockedBy, unlocked.get().getCreatorId(), unlocked.get()));
+            return unlocked.get();
         }
-        throw new RuntimeException("Surprise not found with id: " + surpriseId);
+        
+        Surprise surprise = surpriseRepository.findById(surpriseId)
+            .orElseThrow(() -> new RuntimeException("Surprise not found with id: " + surpriseId));
+        log.warn("Surprise {} is already unlocked", surpriseId);
+        return surprise;
     }
     
     public Surprise updateSurprise(String id, String title, String description, 
@@ -0,0 +1,120 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.TypingEvent;
+import com.whispersofus.dto.WebSocketChatMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses bursts of typing events into one start and one stop frame per sender
+ * A start frame is sent when a user begins typing. Stop requests are delayed by a short
+ * window and cancelled if typing resumes, and a user who never sends a stop is stopped
+ * after an idle timeout. Works purely in memory; frames go to the partner only.
+ */
+@Component
+@Slf4j
+public class TypingIndicatorCoalescer {
+
+    private final CoupleMessagingService coupleMessagingService;
+    private final PartnerResolver partnerResolver;
+    private final Duration stopDelay;
+    private final Duration idleTimeout;
+
+    private final Map<String, PendingStop> typingUsers = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "typing-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TypingIndicatorCoalescer(CoupleMessagingService coupleMessagingService,
+                                    PartnerResolver partnerResolver,
+                                    @Value("${app.chat.typing.stop-delay:750ms}") Duration stopDelay,
+                                    @Value("${app.chat.typing.idle-timeout:5s}") Duration idleTimeout) {
+        this.coupleMessagingService = coupleMessagingService;
+        this.partnerResolver = partnerResolver;
+        this.stopDelay = stopDelay;
+        this.idleTimeout = idleTimeout;
+        // Every keystroke cancels a pending stop; drop those tasks instead of keeping them until their delay
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Record a typing event from a user
+     * @param userId The database ID of the typing user
+     */
+    public void typing(String userId) {
+        PendingStop next = new PendingStop();
+        PendingStop previous = typingUsers.put(userId, next);
+        next.schedule(userId, idleTimeout);
+
+        if (previous == null) {
+            send(userId, WebSocketChatMessage.Type.TYPING);
+        } else {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Record that a user stopped typing
+     * The stop frame goes out after a short delay unless the user starts typing again
+     * @param userId The database ID of the user
+     */
+    public void stoppedTyping(String userId) {
+        PendingStop current = typingUsers.get(userId);
+        if (current == null) {
+            return;
+        }
+
+        PendingStop next = new PendingStop();
+        if (typingUsers.replace(userId, current, next)) {
+            next.schedule(userId, stopDelay);
+            current.cancel();
+        }
+    }
+
+    private void fireStop(String userId, PendingStop pending) {
+        // Only the latest scheduled stop of a user may end the typing state
+        if (typingUsers.remove(userId, pending)) {
+            send(userId, WebSocketChatMessage.Type.STOP_TYPING);
+        }
+    }
+
+    private void send(String userId, WebSocketChatMessage.Type type) {
+        try {
+            partnerResolver.findPartnerId(userId).ifPresent(partnerId ->
+                coupleMessagingService.sendToPartner(partnerId, new TypingEvent(userId, type)));
+        } catch (Exception e) {
+            log.error("Error sending {} indicator for {}: {}", type, userId, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private final class PendingStop {
+        private volatile ScheduledFuture<?> future;
+
+        void schedule(String userId, Duration delay) {
+            future = scheduler.schedule(() -> fireStop(userId, this), delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        void cancel() {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.whispersofus.service;
+
+import com.whispersofus.dto.UnreadBadgesResponse;
+import com.whispersofus.model.UnreadCounter;
+import com.whispersofus.repository.ChatMessageRepository;
+import com.whispersofus.repository.LoveNoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maintains per-user unread counters for chat messages and love notes
+ * Counters are adjusted with $inc as items are sent and read, served with a single
+ * point read and pushed to the user's /queue/badges destination whenever they change.
+ * A user's counter document is created lazily from the source collections, so an
+ * increment must only be applied once the item it counts has been stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadBadgeService {
+
+    public static final String BADGES_DESTINATION = "/queue/badges";
+
+    private static final String CHAT_MESSAGES = "chatMessages";
+    private static final String LOVE_NOTES = "loveNotes";
+
+    private final MongoTemplate mongoTemplate;
+    private final ChatMessageRepository chatMessageRepository;
+    private final LoveNoteRepository loveNoteRepository;
+    private final CoupleMessagingService coupleMessagingService;
+
+    public UnreadBadgesResponse getBadges(String userId) {
+        UnreadCounter counter = mongoTemplate.findById(userId, UnreadCounter.class);
+        return toResponse(counter != null ? counter : initialize(userId));
+    }
+
+    public void chatMessageReceived(String userId) {
+        adjust(userId, CHAT_MESSAGES, 1);
+    }
+
+    public void chatMessagesReceived(String userId, long count) {
+        adjust(userId, CHAT_MESSAGES, count);
+    }
+
+    public void chatMessagesRead(String userId, long count) {
+        adjust(userId, CHAT_MESSAGES, -count);
+    }
+
+    public void loveNoteReceived(String userId) {
+        adjust(userId, LOVE_NOTES, 1);
+    }
+
+    public void loveNotesRead(String userId, long count) {
+        adjust(userId, LOVE_NOTES, -count);
+    }
+
+    private void adjust(String userId, String field, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+
+        try {
+            Criteria criteria = Criteria.where("id").is(userId);
+            if (delta < 0) {
+                // Never let a counter go negative; a mismatch means it drifted and is recounted
+                criteria.and(field).gte(-delta);
+            }
+            UnreadCounter counter = mongoTemplate.findAndModify(
+                Query.query(criteria),
+                new Update().inc(field, delta).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                UnreadCounter.class
+            );
+            if (counter == null) {
+                counter = delta < 0 ? recount(userId) : initialize(userId);
+            }
+            coupleMessagingService.sendToUser(userId, BADGES_DESTINATION, toResponse(counter));
+        } catch (Exception e) {
+            log.error("Failed to update unread badges for user {}: {}", userId, e.getMessage(), e);
+        }
+    }
+
+    // Create the counter document from the source collections if it does not exist yet
+    private UnreadCounter initialize(String userId) {
+        try {
+            return mongoTemplate.insert(count(userId));
+        } catch (DuplicateKeyException e) {
+            UnreadCounter existing = mongoTemplate.findById(userId, UnreadCounter.class);
+            return existing != null ? existing : count(userId);
+        }
+    }
+
+    private UnreadCounter recount(String userId) {
+        log.debug("Recounting unread badges for user {}", userId);
+        return mongoTemplate.save(count(userId));
+    }
+
+    private UnreadCounter count(String userId) {
+        return new UnreadCounter(
+            userId,
+            chatMessageRepository.countByReceiverIdAndIsReadFalse(userId),
+            loveNoteRepository.countByReceiverIdAndIsReadFalse(userId)
+        );
+    }
+
+    private UnreadBadgesResponse toResponse(UnreadCounter counter) {
+        return new UnreadBadgesResponse(
+            counter.getChatMessages(),
+            counter.getLoveNotes(),
+            counter.getChatMessages() + counter.getLoveNotes()
+        );
+    }
+}
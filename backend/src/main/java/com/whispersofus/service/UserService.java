@@ -1,31 +1,65 @@
 package com.whispersofus.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.whispersofus.model.User;
 import com.whispersofus.model.UserRole;
 import com.whispersofus.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class UserService {
     
     private final UserRepository userRepository;
     
+    // Every REST and STOMP handler resolves the caller by Firebase UID, so keep
+    // recently used users in memory. Entries are refreshed on every write below.
+    private final Cache<String, User> usersByFirebaseUid;
+    private final Cache<String, User> usersById;
+    
+    public UserService(UserRepository userRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.cache.users.max-size:10000}") long maxSize,
+                       @Value("${app.cache.users.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.usersByFirebaseUid = buildCache(maxSize, ttl);
+        this.usersById = buildCache(maxSize, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByFirebaseUid, "users.byFirebaseUid");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+    }
+    
+    private static Cache<String, User> buildCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+    
     public User createUser(User user) {
         log.info("Creating new user with email: {}", user.getEmail());
-        return userRepository.save(user);
+        return cache(userRepository.save(user));
     }
     
     public Optional<User> findByFirebaseUid(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid);
+        User cached = usersByFirebaseUid.getIfPresent(firebaseUid);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findByFirebaseUid(firebaseUid);
+        user.ifPresent(this::cache);
+        return user;
     }
     
     public Optional<User> findByEmail(String email) {
@@ -33,7 +67,13 @@ public class UserService {
     }
     
     public Optional<User> findById(String id) {
-        return userRepository.findById(id);
+        User cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(this::cache);
+        return user;
     }
     
     public List<User> findAllUsers() {
@@ -43,7 +83,8 @@ public class UserService {
     public User updateUser(User user) {
         log.info("Updating user: {}", user.getId());
         user.onUpdate(); // Update timestamp
-        return userRepository.save(user);
+        evict(user);
+        return cache(userRepository.save(user));
     }
     
     public User createOrUpdateUser(String firebaseUid, String email, String name, UserRole role) {
@@ -64,7 +105,20 @@ public class UserService {
         }
     }
     
+    /**
+     * Check whether a Firebase UID belongs to a user that is already in the cache
+     * Never queries the database, so it can run in front of every request
+     * @param firebaseUid The Firebase UID
+     * @return True if the UID was recently resolved to a user
+     */
+    public boolean isResolved(String firebaseUid) {
+        return firebaseUid != null && usersByFirebaseUid.getIfPresent(firebaseUid) != null;
+    }
+    
     public boolean existsByFirebaseUid(String firebaseUid) {
+        if (usersByFirebaseUid.getIfPresent(firebaseUid) != null) {
+            return true;
+        }
         return userRepository.existsByFirebaseUid(firebaseUid);
     }
     
@@ -73,9 +127,39 @@ public class UserService {
     }
     
     public boolean existsById(String id) {
+        if (usersById.getIfPresent(id) != null) {
+            return true;
+        }
         return userRepository.existsById(id);
     }
     
+    /**
+     * Drop a user from the lookup caches, e.g. before it is rewritten
+     * @param user The user whose cache entries should be removed
+     */
+    public void evict(User user) {
+        if (user.getId() != null) {
+            User previous = usersById.getIfPresent(user.getId());
+            usersById.invalidate(user.getId());
+            if (previous != null && previous.getFirebaseUid() != null) {
+                usersByFirebaseUid.invalidate(previous.getFirebaseUid());
+            }
+        }
+        if (user.getFirebaseUid() != null) {
+            usersByFirebaseUid.invalidate(user.getFirebaseUid());
+        }
+    }
+    
+    private User cache(User user) {
+        if (user.getId() != null) {
+            usersById.put(user.getId(), user);
+        }
+        if (user.getFirebaseUid() != null) {
+            usersByFirebaseUid.put(user.getFirebaseUid(), user);
+        }
+        return user;
+    }
+    
     /**
      * Search for users available for partnering
      * Excludes the current user and users who already have partners
@@ -1,15 +1,21 @@
 package com.whispersofus.service;
 
 import com.whispersofus.controller.WishController.WishStats;
+import com.whispersofus.event.CoupleActivityEvent;
 import com.whispersofus.model.Wish;
 import com.whispersofus.model.WishCategory;
 import com.whispersofus.model.WishStatus;
 import com.whispersofus.repository.WishRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,8 +26,19 @@ import java.util.Optional;
 public class WishService {
     
     private final WishRepository wishRepository;
+    private final PartialUpdater partialUpdater;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Wish createWish(String title, String description, String photoUrl, WishCategory category) {
+        return createWish(title, description, photoUrl, category, null);
+    }
+    
+    /**
+     * Create a wish and tell the creator's partner
+     * @param creatorId The ID of the user making the wish, or null if unknown
+     */
+    public Wish createWish(String title, String description, String photoUrl, WishCategory category,
+                           String creatorId) {
         log.info("Creating new wish: {}", title);
         
         Wish wish = new Wish();
@@ -31,7 +48,10 @@ public class WishService {
         wish.setCategory(category);
         wish.setStatus(WishStatus.PENDING);
         
-        return wishRepository.save(wish);
+        Wish saved = wishRepository.save(wish);
+        eventPublisher.publishEvent(new CoupleActivityEvent(
+            CoupleActivityEvent.Type.WISH_CREATED, creatorId, null, saved));
+        return saved;
     }
     
     public List<Wish> getAllWishes() {
@@ -51,18 +71,30 @@ public class WishService {
     }
     
     public Wish updateWishStatus(String id, WishStatus status, String fulfillmentNote) {
-        Optional<Wish> wishOpt = wishRepository.findById(id);
-        if (wishOpt.isPresent()) {
-            Wish wish = wishOpt.get();
-            wish.setStatus(status);
-            if (fulfillmentNote != null && !fulfillmentNote.trim().isEmpty()) {
-                wish.setFulfillmentNote(fulfillmentNote);
-            }
-            
-            log.info("Updating wish status: {} to {}", id, status);
-            return wishRepository.save(wish);
+        return updateWishStatus(id, status, fulfillmentNote, null);
+    }
+    
+    /**
+     * Change the status of a wish and tell the updater's partner
+     * @param updatedBy The ID of the user changing it, or null if unknown
+     */
+    public Wish updateWishStatus(String id, WishStatus status, String fulfillmentNote, String updatedBy) {
+        log.info("Updating wish status: {} to {}", id, status);
+        AggregationUpdate update = AggregationUpdate.update().set("status").toValue(status.name());
+        if (fulfillmentNote != null && !fulfillmentNote.trim().isEmpty()) {
+            // As a literal, so a note starting with $ is not read as a field path
+            update.set("fulfillmentNote").toValue(LiteralOperators.Literal.asLiteral(fulfillmentNote));
         }
-        throw new RuntimeException("Wish not found with id: " + id);
+        if (status == WishStatus.FULFILLED) {
+            // Record the first fulfillment time only; a wish fulfilled again keeps it
+            update.set("fulfilledAt").toValue(ConditionalOperators.ifNull("fulfilledAt").then(LocalDateTime.now()));
+        }
+        Wish wish = partialUpdater.update(Wish.class, id, update)
+            .orElseThrow(() -> new RuntimeException("Wish not found with id: " + id));
+        
+        eventPublisher.publishEvent(new CoupleActivityEvent(
+            CoupleActivityEvent.Type.WISH_STATUS_CHANGED, updatedBy, null, wish));
+        return wish;
     }
     
     public Wish updateWish(String id, String title, String description, String photoUrl, WishCategory category) {
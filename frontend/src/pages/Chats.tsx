@@ -18,9 +18,23 @@ interface WebSocketMessage {
   messageType: 'TEXT' | 'IMAGE' | 'VOICE' | 'EMOJI' | 'SYSTEM';
   timestamp?: string;
   chatRoomId?: string;
-  type: 'CHAT' | 'JOIN' | 'LEAVE' | 'TYPING' | 'STOP_TYPING';
+  type: 'CHAT' | 'JOIN' | 'LEAVE' | 'TYPING' | 'STOP_TYPING' | 'SYNC';
+  messages?: WebSocketMessage[];
+  hasMore?: boolean;
 }
 
+// Convert WebSocket message to ChatMessage format
+const toChatMessage = (wsMessage: WebSocketMessage): ChatMessage => ({
+  id: wsMessage.id || '',
+  senderId: wsMessage.senderId,
+  receiverId: wsMessage.receiverId || '',
+  content: wsMessage.content,
+  messageType: wsMessage.messageType,
+  isRead: false,
+  createdAt: wsMessage.timestamp || new Date().toISOString(),
+  updatedAt: wsMessage.timestamp || new Date().toISOString()
+});
+
 const Chats: React.FC = () => {
   const { user, firebaseUser } = useAppSelector((state) => state.auth);
   const [messages, setMessages] = useState<ChatMessage[]>([]);
@@ -89,6 +103,15 @@ const Chats: React.FC = () => {
         },
         onMessage: (message: WebSocketMessage) => {
           handleWebSocketMessage(message);
+        },
+        onReadReceipt: (receipt: { upTo: string }) => {
+          // Our messages up to the receipt have been read by the partner
+          const upTo = new Date(receipt.upTo).getTime();
+          setMessages(prev => prev.map(msg =>
+            msg.senderId === user?.id && new Date(msg.createdAt).getTime() <= upTo
+              ? { ...msg, isRead: true }
+              : msg
+          ));
         }
       });
     } catch (error) {
@@ -102,17 +125,7 @@ const Chats: React.FC = () => {
     
     switch (wsMessage.type) {
       case 'CHAT':
-        // Convert WebSocket message to ChatMessage format
-        const chatMessage: ChatMessage = {
-          id: wsMessage.id || '',
-          senderId: wsMessage.senderId,
-          receiverId: wsMessage.receiverId || '',
-          content: wsMessage.content,
-          messageType: wsMessage.messageType,
-          isRead: false,
-          createdAt: wsMessage.timestamp || new Date().toISOString(),
-          updatedAt: wsMessage.timestamp || new Date().toISOString()
-        };
+        const chatMessage = toChatMessage(wsMessage);
         
         // Only add if it's not already in the list (avoid duplicates)
         setMessages(prev => {
@@ -122,6 +135,22 @@ const Chats: React.FC = () => {
           }
           return prev;
         });
+        if (chatMessage.id && chatMessage.senderId !== user?.id) {
+          socketService?.sendReadReceipt(chatMessage.id);
+        }
+        break;
+        
+      case 'SYNC':
+        // Messages missed while the connection was down, oldest first
+        if (wsMessage.hasMore) {
+          fetchMessages(0, true);
+          break;
+        }
+        const missed = (wsMessage.messages || []).map(toChatMessage);
+        setMessages(prev => {
+          const known = new Set(prev.map(msg => msg.id));
+          return [...prev, ...missed.filter(msg => msg.id && !known.has(msg.id))];
+        });
         break;
         
       case 'JOIN':
@@ -162,6 +191,7 @@ const Chats: React.FC = () => {
       if (isInitial) {
         // Reverse the messages since they come newest first from backend
         setMessages(result.content.reverse());
+        socketService?.setLastSeenMessageId(result.content[result.content.length - 1]?.id || null);
       } else {
         // Prepend older messages
         setMessages(prev => [...result.content.reverse(), ...prev]);
@@ -2,10 +2,12 @@ import axiosInstance from '../config/axios';
 import { ApiResponse, LoveNote } from './api.types';
 
 export const loveNoteService = {
-  createLoveNote: async (content: string, emotionTag: string): Promise<LoveNote> => {
+  // deliverAt schedules an "open when" note instead of delivering it now; sent as a UTC ISO-8601 instant
+  createLoveNote: async (content: string, emotionTag: string, deliverAt?: Date): Promise<LoveNote> => {
     const response = await axiosInstance.post<LoveNote>('/love-notes', {
       content,
-      emotionTag
+      emotionTag,
+      deliverAt: deliverAt?.toISOString()
     });
     return response;
   },
@@ -23,6 +25,20 @@ export const loveNoteService = {
     return response;
   },
 
+  // Keyset-paginated feed: pass nextCursor back as 'before' to load older notes
+  getLoveNoteFeed: async (before?: string, limit: number = 20): Promise<{
+    content: LoveNote[];
+    hasNext: boolean;
+    nextCursor: string | null;
+  }> => {
+    const params: any = { limit };
+    if (before) {
+      params.before = before;
+    }
+    const response = await axiosInstance.get('/love-notes/feed', { params });
+    return response;
+  },
+
   getUnreadNotes: async (): Promise<LoveNote[]> => {
     const response = await axiosInstance.get<LoveNote[]>('/love-notes/unread');
     console.log('Unread Notes Response:', response);
@@ -16,11 +16,15 @@ const loadDependencies = async () => {
 };
 
 let stompClient: any = null;
+// Newest chat message this client has, sent on (re)join so the server replays only what was missed
+let lastSeenMessageId: string | null = null;
 let connectionCallbacks: {
   onConnect?: () => void;
   onDisconnect?: () => void;
   onError?: (error: any) => void;
   onMessage?: (message: any) => void;
+  onReadReceipt?: (receipt: ReadReceipt) => void;
+  onCoupleActivity?: (activity: CoupleActivity) => void;
 } = {};
 
 export interface WebSocketMessage {
@@ -32,9 +36,40 @@ export interface WebSocketMessage {
   messageType: 'TEXT' | 'IMAGE' | 'VOICE' | 'EMOJI' | 'SYSTEM';
   timestamp?: string;
   chatRoomId?: string;
-  type: 'CHAT' | 'JOIN' | 'LEAVE' | 'TYPING' | 'STOP_TYPING';
+  type: 'CHAT' | 'JOIN' | 'LEAVE' | 'TYPING' | 'STOP_TYPING' | 'SYNC';
+  lastSeenMessageId?: string;
+  messages?: WebSocketMessage[];
+  hasMore?: boolean;
 }
 
+// Pushed when the partner has read our messages up to upToMessageId
+export interface ReadReceipt {
+  readerId: string;
+  upToMessageId: string;
+  upTo: string;
+  readCount: number;
+}
+
+// Pushed when the partner creates a love note, wish or surprise, or changes one
+export interface CoupleActivity {
+  type: 'LOVE_NOTE_RECEIVED' | 'WISH_CREATED' | 'WISH_STATUS_CHANGED' | 'SURPRISE_CREATED' | 'SURPRISE_UNLOCKED';
+  actorId: string | null;
+  data: any;
+  occurredAt: string;
+}
+
+export const setLastSeenMessageId = (messageId: string | null) => {
+  lastSeenMessageId = messageId;
+};
+
+const trackLastSeen = (message: WebSocketMessage) => {
+  if (message.type === 'CHAT' && message.id) {
+    lastSeenMessageId = message.id;
+  } else if (message.type === 'SYNC' && message.messages?.length) {
+    lastSeenMessageId = message.messages[message.messages.length - 1].id || lastSeenMessageId;
+  }
+};
+
 // Get WebSocket URL from environment variables
 const getWebSocketUrl = () => {
   const apiBaseUrl = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080';
@@ -49,6 +84,8 @@ export const connectSocket = async (
     onDisconnect?: () => void;
     onError?: (error: any) => void;
     onMessage?: (message: any) => void;
+    onReadReceipt?: (receipt: ReadReceipt) => void;
+    onCoupleActivity?: (activity: CoupleActivity) => void;
   } = {}
 ) => {
   try {
@@ -64,10 +101,10 @@ export const connectSocket = async (
     
     const wsUrl = getWebSocketUrl();
     console.log("🔌 Connecting to WebSocket at:", wsUrl);
-    const socket = new SockJSClass(wsUrl);
 
     stompClient = new ClientClass({
-      webSocketFactory: () => socket,
+      // A fresh socket per attempt so automatic reconnects work
+      webSocketFactory: () => new SockJSClass(wsUrl),
       connectHeaders: { 
         Authorization: `Bearer ${token}`,
         "Firebase-UID": firebaseUid
@@ -76,29 +113,36 @@ export const connectSocket = async (
       onConnect: () => {
         console.log("✅ WebSocket connected");
         
-        // Subscribe to public topic for general chat
-        stompClient?.subscribe("/topic/public", (message: any) => {
+        // Subscribe to user-specific messages; the server routes chat, join and
+        // typing frames to the two members of the partnership only
+        stompClient?.subscribe("/user/queue/messages", (message: any) => {
           try {
             const parsedMessage = JSON.parse(message.body);
             console.log("📨 Received message:", parsedMessage);
+            trackLastSeen(parsedMessage);
             connectionCallbacks.onMessage?.(parsedMessage);
           } catch (error) {
             console.error("Error parsing message:", error);
           }
         });
 
-        // Subscribe to user-specific messages
-        stompClient?.subscribe(`/user/${firebaseUid}/queue/messages`, (message: any) => {
+        stompClient?.subscribe("/user/queue/receipts", (message: any) => {
           try {
-            const parsedMessage = JSON.parse(message.body);
-            console.log("📨 Received private message:", parsedMessage);
-            connectionCallbacks.onMessage?.(parsedMessage);
+            connectionCallbacks.onReadReceipt?.(JSON.parse(message.body));
           } catch (error) {
-            console.error("Error parsing private message:", error);
+            console.error("Error parsing read receipt:", error);
           }
         });
 
-        // Notify user joined
+        stompClient?.subscribe("/user/queue/events", (message: any) => {
+          try {
+            connectionCallbacks.onCoupleActivity?.(JSON.parse(message.body));
+          } catch (error) {
+            console.error("Error parsing couple activity:", error);
+          }
+        });
+
+        // Notify user joined; on reconnect this also asks for missed messages
         joinChat(firebaseUid);
         
         connectionCallbacks.onConnect?.();
@@ -167,7 +211,8 @@ export const joinChat = (firebaseUid: string) => {
         senderId: firebaseUid,
         type: 'JOIN',
         content: '',
-        messageType: 'SYSTEM'
+        messageType: 'SYSTEM',
+        lastSeenMessageId: lastSeenMessageId || undefined
       }),
     });
   } catch (error) {
@@ -175,6 +220,22 @@ export const joinChat = (firebaseUid: string) => {
   }
 };
 
+// The server batches receipts, so this can be called for every message displayed
+export const sendReadReceipt = (messageId: string) => {
+  if (!stompClient || !stompClient.connected || !messageId) {
+    return;
+  }
+
+  try {
+    stompClient.publish({
+      destination: "/app/chat.read",
+      body: JSON.stringify({ messageId }),
+    });
+  } catch (error) {
+    console.error("Error sending read receipt:", error);
+  }
+};
+
 export const sendTypingIndicator = (firebaseUid: string) => {
   if (!stompClient || !stompClient.connected) {
     return;
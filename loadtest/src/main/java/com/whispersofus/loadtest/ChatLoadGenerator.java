@@ -0,0 +1,171 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load generator for the /ws-chat STOMP endpoint
+ * Provisions N couples against a running backend, lets every couple exchange chat
+ * messages and typing events at the configured rates, and writes the end-to-end
+ * delivery latency percentiles and throughput of the measured window as JSON.
+ *
+ * Usage: java -jar chat-loadtest.jar --base-url=http://localhost:8080 --couples=100
+ */
+public class ChatLoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatLoadGenerator.class);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Map<String, Object> report = new ChatLoadGenerator().run(config);
+
+        Path output = config.getOutput().toAbsolutePath();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Report written to {}", output);
+        System.exit(0);
+    }
+
+    public Map<String, Object> run(LoadTestConfig config) throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(2);
+        heartbeatScheduler.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeatScheduler.initialize();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(heartbeatScheduler);
+        stompClient.setDefaultHeartbeat(new long[] {10_000, 10_000});
+
+        List<SimulatedUser[]> couples = setUp(config, runId, stompClient, recorder);
+        log.info("Run {}: {} couples connected, warming up for {}s", runId, couples.size(), config.getWarmup().toSeconds());
+
+        int workers = Math.max(2, Math.min(couples.size(), Runtime.getRuntime().availableProcessors() * 2));
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(workers);
+        for (SimulatedUser[] couple : couples) {
+            scheduleChat(senders, couple, config.getMessagesPerSecond());
+            scheduleTyping(senders, couple, config.getTypingPerSecond());
+        }
+
+        Thread.sleep(config.getWarmup().toMillis());
+        recorder.startMeasuring();
+        Instant started = Instant.now();
+        log.info("Measuring for {}s", config.getDuration().toSeconds());
+
+        long end = System.nanoTime() + config.getDuration().toNanos();
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(5_000, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()) + 1));
+            Histogram interval = recorder.intervalHistogram();
+            log.info("interval: {} delivered, p50={}ms p99={}ms", interval.getTotalCount(),
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0);
+        }
+
+        recorder.stopMeasuring();
+        senders.shutdownNow();
+        // Let in-flight messages arrive before the numbers are taken
+        Thread.sleep(config.getDrain().toMillis());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("startedAt", started.toString());
+        report.put("config", config.toMap());
+        report.put("connectedCouples", couples.size());
+        report.put("results", recorder.summary(config.getDuration().toMillis() / 1000.0));
+
+        for (SimulatedUser[] couple : couples) {
+            couple[0].disconnect();
+            couple[1].disconnect();
+        }
+        heartbeatScheduler.shutdown();
+        return report;
+    }
+
+    // Provision and connect couples a few at a time so setup does not look like a login storm
+    private List<SimulatedUser[]> setUp(LoadTestConfig config, String runId, WebSocketStompClient stompClient,
+                                        LatencyRecorder recorder) throws InterruptedException {
+        CoupleProvisioner provisioner = new CoupleProvisioner(config.getBaseUrl(), runId);
+        ExecutorService connectors = Executors.newFixedThreadPool(config.getConnectConcurrency());
+        List<Future<SimulatedUser[]>> pending = new ArrayList<>();
+        for (int i = 0; i < config.getCouples(); i++) {
+            int index = i;
+            pending.add(connectors.submit(() -> {
+                SimulatedUser[] couple = provisioner.provision(index);
+                for (SimulatedUser user : couple) {
+                    user.connect(stompClient, config.getWebSocketUrl(), recorder);
+                }
+                return couple;
+            }));
+        }
+
+        List<SimulatedUser[]> couples = new ArrayList<>();
+        for (Future<SimulatedUser[]> future : pending) {
+            try {
+                couples.add(future.get());
+            } catch (Exception e) {
+                log.warn("Failed to set up couple: {}", e.getMessage());
+            }
+        }
+        connectors.shutdown();
+
+        if (couples.isEmpty()) {
+            throw new IllegalStateException("No couple could be connected to " + config.getWebSocketUrl());
+        }
+        return couples;
+    }
+
+    // Both partners send; each one at half the couple rate, with a random offset to avoid lockstep bursts
+    private void scheduleChat(ScheduledExecutorService senders, SimulatedUser[] couple, double perSecond) {
+        if (perSecond <= 0) {
+            return;
+        }
+        long periodMicros = Math.max(1, (long) (2_000_000 / perSecond));
+        for (SimulatedUser user : couple) {
+            long offset = ThreadLocalRandom.current().nextLong(periodMicros);
+            senders.scheduleAtFixedRate(user::sendMessage, offset, periodMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    // Typing events alternate between start and stop, as a real client emits them
+    private void scheduleTyping(ScheduledExecutorService senders, SimulatedUser[] couple, double perSecond) {
+        if (perSecond <= 0) {
+            return;
+        }
+        long periodMicros = Math.max(1, (long) (1_000_000 / perSecond));
+        SimulatedUser typist = couple[0];
+        boolean[] typing = {false};
+        senders.scheduleAtFixedRate(() -> {
+            typing[0] = !typing[0];
+            typist.sendTyping(typing[0]);
+        }, ThreadLocalRandom.current().nextLong(periodMicros), periodMicros, TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Creates pairs of users and links them as partners through the public REST API
+ * Every run uses fresh Firebase UIDs, so runs never interfere with each other or real users
+ */
+public class CoupleProvisioner {
+
+    private final String baseUrl;
+    private final String runId;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public CoupleProvisioner(String baseUrl, String runId) {
+        this.baseUrl = baseUrl;
+        this.runId = runId;
+    }
+
+    /**
+     * Register two users and make them partners
+     * @param index Number of the couple within the run
+     * @return The two partners
+     */
+    public SimulatedUser[] provision(int index) throws IOException, InterruptedException {
+        String uidA = "loadtest-" + runId + "-" + index + "-a";
+        String uidB = "loadtest-" + runId + "-" + index + "-b";
+        String idA = register(uidA);
+        String idB = register(uidB);
+
+        JsonNode request = post("/partners/request", uidA, Map.of("receiverId", idB));
+        post("/partners/respond", uidB, Map.of("requestId", request.path("data").path("id").asText(), "accepted", true));
+
+        return new SimulatedUser[] {new SimulatedUser(uidA, idA, idB), new SimulatedUser(uidB, idB, idA)};
+    }
+
+    private String register(String firebaseUid) throws IOException, InterruptedException {
+        String query = "?email=" + encode(firebaseUid + "@loadtest.local") + "&name=" + encode(firebaseUid);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/register" + query))
+            .header("Firebase-UID", firebaseUid)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        return send(request).path("data").path("id").asText();
+    }
+
+    private JsonNode post(String path, String firebaseUid, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Firebase-UID", firebaseUid)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+            .build();
+        return send(request);
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.uri().getPath() + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that STOMP fan-out stays per couple as the number of couples grows
+ * Runs the chat load generator once per couple count with the same per-couple rates and
+ * compares the frames each couple receives per second. With per-user routing the rate is
+ * flat; with a broadcast destination it grows with the number of couples. Any frame from
+ * outside a couple fails the run as well.
+ *
+ * Usage: java -Dloader.main=com.whispersofus.loadtest.FanOutScenario -cp chat-loadtest.jar
+ *        org.springframework.boot.loader.launch.PropertiesLauncher --couple-steps=10,50,200
+ */
+public class FanOutScenario {
+
+    private static final Logger log = LoggerFactory.getLogger(FanOutScenario.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestConfig.parseArguments(args);
+        List<Integer> steps = Arrays.stream(options.getOrDefault("couple-steps", "10,50,100,200").split(","))
+            .map(String::trim)
+            .map(Integer::parseInt)
+            .toList();
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "1.25"));
+        Path output = Paths.get(options.getOrDefault("output", "fanout-report.json")).toAbsolutePath();
+
+        Map<String, Object> report = new FanOutScenario().run(options, steps, tolerance);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Report written to {}", output);
+        System.exit(Boolean.TRUE.equals(report.get("passed")) ? 0 : 1);
+    }
+
+    public Map<String, Object> run(Map<String, String> options, List<Integer> steps, double tolerance) throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        double minRate = Double.MAX_VALUE;
+        double maxRate = 0;
+        long foreignFrames = 0;
+
+        for (int couples : steps) {
+            Map<String, String> stepOptions = new HashMap<>(options);
+            stepOptions.put("couples", String.valueOf(couples));
+            LoadTestConfig config = LoadTestConfig.of(stepOptions);
+            log.info("Fan-out step with {} couples", couples);
+
+            Map<String, Object> run = new ChatLoadGenerator().run(config);
+            Map<?, ?> summary = (Map<?, ?>) run.get("results");
+            int connected = (Integer) run.get("connectedCouples");
+            long frames = ((Number) summary.get("framesReceived")).longValue();
+            long foreign = ((Number) summary.get("foreignFrames")).longValue();
+            double perCouple = frames / (config.getDuration().toMillis() / 1000.0) / connected;
+
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("couples", connected);
+            step.put("framesReceived", frames);
+            step.put("framesPerSecondPerCouple", Math.round(perCouple * 100) / 100.0);
+            step.put("foreignFrames", foreign);
+            step.put("latencyMillis", summary.get("latencyMillis"));
+            results.add(step);
+
+            minRate = Math.min(minRate, perCouple);
+            maxRate = Math.max(maxRate, perCouple);
+            foreignFrames += foreign;
+        }
+
+        double spread = minRate > 0 ? maxRate / minRate : Double.POSITIVE_INFINITY;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("steps", results);
+        report.put("maxToMinFramesPerCouple", Math.round(spread * 100) / 100.0);
+        report.put("tolerance", tolerance);
+        report.put("passed", spread <= tolerance && foreignFrames == 0);
+        return report;
+    }
+}
@@ -0,0 +1,159 @@
+package com.whispersofus.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects end-to-end delivery latencies and counters for one run
+ * Latencies are recorded in microseconds into an HdrHistogram recorder, which is
+ * safe to write from the many STOMP client threads at once
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder typingSent = new LongAdder();
+    private final LongAdder typingReceived = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder foreignFrames = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // Measured window in System.nanoTime(); messages sent outside of it are ignored on both ends
+    private volatile long windowStart = Long.MAX_VALUE;
+    private volatile long windowEnd = Long.MAX_VALUE;
+
+    /**
+     * Start counting; everything sent before this call is treated as warmup
+     */
+    public void startMeasuring() {
+        recorder.reset();
+        windowStart = System.nanoTime();
+    }
+
+    /**
+     * Stop counting new sends; messages already in flight are still recorded on delivery
+     */
+    public void stopMeasuring() {
+        windowEnd = System.nanoTime();
+    }
+
+    public boolean isMeasured(long sentAtNanos) {
+        return sentAtNanos - windowStart >= 0 && windowEnd - sentAtNanos > 0;
+    }
+
+    public void messageSent(long sentAtNanos) {
+        if (isMeasured(sentAtNanos)) {
+            sent.increment();
+        }
+    }
+
+    /**
+     * Record a message delivered to the partner
+     * @param sentAtNanos System.nanoTime() taken by the sender right before sending
+     */
+    public void messageDelivered(long sentAtNanos) {
+        if (!isMeasured(sentAtNanos)) {
+            return;
+        }
+        delivered.increment();
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAtNanos);
+        recorder.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    public void typingSent() {
+        if (isMeasured(System.nanoTime())) {
+            typingSent.increment();
+        }
+    }
+
+    public void typingReceived() {
+        if (isMeasured(System.nanoTime())) {
+            typingReceived.increment();
+        }
+    }
+
+    /**
+     * Count any frame arriving on a user's message queue, for the fan-out per couple
+     */
+    public void frameReceived() {
+        if (isMeasured(System.nanoTime())) {
+            framesReceived.increment();
+        }
+    }
+
+    /**
+     * Count a frame sent by someone outside the receiving user's couple
+     */
+    public void foreignFrame() {
+        foreignFrames.increment();
+    }
+
+    public long getMessagesSent() {
+        return sent.sum();
+    }
+
+    public long getMessagesDelivered() {
+        return delivered.sum();
+    }
+
+    public long getForeignFrames() {
+        return foreignFrames.sum();
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    /**
+     * Histogram of the latencies recorded since the previous call
+     * @return Interval histogram, also accumulated into the run total
+     */
+    public synchronized Histogram intervalHistogram() {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        return interval;
+    }
+
+    /**
+     * Summary of the whole measured window
+     * @param measuredSeconds Length of the measured window
+     * @return Map ready to be written as JSON
+     */
+    public synchronized Map<String, Object> summary(double measuredSeconds) {
+        intervalHistogram();
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", toMillis(total.getValueAtPercentile(50)));
+        latency.put("p90", toMillis(total.getValueAtPercentile(90)));
+        latency.put("p99", toMillis(total.getValueAtPercentile(99)));
+        latency.put("p999", toMillis(total.getValueAtPercentile(99.9)));
+        latency.put("max", toMillis(total.getMaxValue()));
+        latency.put("mean", Math.round(total.getMean()) / 1000.0);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("messagesSent", sent.sum());
+        summary.put("messagesDelivered", delivered.sum());
+        summary.put("messagesLost", Math.max(sent.sum() - delivered.sum(), 0));
+        summary.put("throughputPerSecond", measuredSeconds > 0 ? Math.round(delivered.sum() / measuredSeconds * 10) / 10.0 : 0);
+        summary.put("typingFramesSent", typingSent.sum());
+        summary.put("typingFramesReceived", typingReceived.sum());
+        summary.put("framesReceived", framesReceived.sum());
+        summary.put("foreignFrames", foreignFrames.sum());
+        summary.put("errors", errors.sum());
+        summary.put("latencyMillis", latency);
+        return summary;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
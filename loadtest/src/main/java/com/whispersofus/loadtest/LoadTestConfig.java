@@ -0,0 +1,113 @@
+package com.whispersofus.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from --key=value arguments
+ */
+public class LoadTestConfig {
+
+    private final String baseUrl;
+    private final int couples;
+    private final double messagesPerSecond;
+    private final double typingPerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration drain;
+    private final int connectConcurrency;
+    private final Path output;
+
+    private LoadTestConfig(Map<String, String> args) {
+        this.baseUrl = args.getOrDefault("base-url", "http://localhost:8080");
+        this.couples = Integer.parseInt(args.getOrDefault("couples", "50"));
+        this.messagesPerSecond = Double.parseDouble(args.getOrDefault("messages-per-second", "1"));
+        this.typingPerSecond = Double.parseDouble(args.getOrDefault("typing-per-second", "2"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(args.getOrDefault("warmup-seconds", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration-seconds", "60")));
+        this.drain = Duration.ofSeconds(Long.parseLong(args.getOrDefault("drain-seconds", "5")));
+        this.connectConcurrency = Integer.parseInt(args.getOrDefault("connect-concurrency", "20"));
+        this.output = Paths.get(args.getOrDefault("output", "loadtest-report.json"));
+    }
+
+    /**
+     * Parse command line arguments
+     * @param args Arguments of the form --key=value
+     * @return The configuration, with defaults for missing keys
+     */
+    public static LoadTestConfig parse(String[] args) {
+        return of(parseArguments(args));
+    }
+
+    static LoadTestConfig of(Map<String, String> values) {
+        return new LoadTestConfig(values);
+    }
+
+    static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return values;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("baseUrl", baseUrl);
+        map.put("couples", couples);
+        map.put("messagesPerSecondPerCouple", messagesPerSecond);
+        map.put("typingPerSecondPerCouple", typingPerSecond);
+        map.put("warmupSeconds", warmup.toSeconds());
+        map.put("durationSeconds", duration.toSeconds());
+        map.put("drainSeconds", drain.toSeconds());
+        return map;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getWebSocketUrl() {
+        return baseUrl + "/ws-chat";
+    }
+
+    public int getCouples() {
+        return couples;
+    }
+
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public double getTypingPerSecond() {
+        return typingPerSecond;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getDrain() {
+        return drain;
+    }
+
+    public int getConnectConcurrency() {
+        return connectConcurrency;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
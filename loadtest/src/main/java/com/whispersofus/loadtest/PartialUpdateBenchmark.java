@@ -0,0 +1,191 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.HdrHistogram.Histogram;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Compares read-modify-write saves with single field-level updates
+ * Marks love-note shaped documents as read twice: once the way findById + save does it
+ * (find, then replace the whole document) and once with one findAndModify carrying only
+ * a $set. Reports round trips, bytes sent and received, and latency per operation.
+ *
+ * Runs against a scratch collection that is dropped afterwards; point it at a local database.
+ *
+ * Usage: java -Dloader.main=com.whispersofus.loadtest.PartialUpdateBenchmark -cp chat-loadtest.jar
+ *        org.springframework.boot.loader.launch.PropertiesLauncher --mongo-uri=mongodb://localhost:27017
+ */
+public class PartialUpdateBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PartialUpdateBenchmark.class);
+
+    private static final String COLLECTION = "partial_update_benchmark";
+
+    private final AtomicBoolean measuring = new AtomicBoolean();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestConfig.parseArguments(args);
+        String mongoUri = options.getOrDefault("mongo-uri", "mongodb://localhost:27017");
+        String database = options.getOrDefault("database", "whispers_benchmark");
+        int documents = Integer.parseInt(options.getOrDefault("documents", "5000"));
+        int contentBytes = Integer.parseInt(options.getOrDefault("content-bytes", "1024"));
+        Path output = Paths.get(options.getOrDefault("output", "partial-update-report.json")).toAbsolutePath();
+
+        Map<String, Object> report = new PartialUpdateBenchmark().run(mongoUri, database, documents, contentBytes);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Report written to {}", output);
+    }
+
+    public Map<String, Object> run(String mongoUri, String database, int documents, int contentBytes) {
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(mongoUri))
+            .addCommandListener(new TrafficListener())
+            .build();
+
+        try (MongoClient client = MongoClients.create(settings)) {
+            MongoCollection<Document> collection = client.getDatabase(database).getCollection(COLLECTION);
+            collection.drop();
+            List<ObjectId> ids = insertNotes(collection, documents, contentBytes);
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("findAndSave", measure(ids, id -> {
+                Document note = collection.find(Filters.eq("_id", id)).first();
+                note.put("is_read", true);
+                note.put("read_at", new Date());
+                collection.replaceOne(Filters.eq("_id", id), note);
+            }));
+
+            collection.updateMany(new Document(), Updates.combine(Updates.set("is_read", false), Updates.unset("read_at")));
+            results.put("partialUpdate", measure(ids, id -> collection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", id), Filters.eq("is_read", false)),
+                Updates.combine(Updates.set("is_read", true), Updates.set("read_at", new Date())),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER))));
+
+            collection.drop();
+
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("documents", documents);
+            config.put("contentBytes", contentBytes);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("config", config);
+            report.put("results", results);
+            return report;
+        }
+    }
+
+    private List<ObjectId> insertNotes(MongoCollection<Document> collection, int documents, int contentBytes) {
+        String content = "x".repeat(contentBytes);
+        List<ObjectId> ids = new ArrayList<>(documents);
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            batch.add(new Document("_id", id)
+                .append("sender_id", "benchmark-sender")
+                .append("receiver_id", "benchmark-receiver")
+                .append("couple_id", "benchmark-receiver:benchmark-sender")
+                .append("content", content)
+                .append("emotion_tag", "LOVE")
+                .append("is_read", false)
+                .append("created_at", new Date())
+                .append("delivered_at", new Date()));
+            if (batch.size() == 1000) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+        }
+        return ids;
+    }
+
+    private Map<String, Object> measure(List<ObjectId> ids, Consumer<ObjectId> operation) {
+        Histogram latency = new Histogram(60_000_000L, 3);
+        roundTrips.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+
+        measuring.set(true);
+        for (ObjectId id : ids) {
+            long start = System.nanoTime();
+            operation.accept(id);
+            latency.recordValue((System.nanoTime() - start) / 1000);
+        }
+        measuring.set(false);
+
+        int operations = ids.size();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("p50", latency.getValueAtPercentile(50) / 1000.0);
+        latencyMillis.put("p99", latency.getValueAtPercentile(99) / 1000.0);
+        latencyMillis.put("mean", Math.round(latency.getMean()) / 1000.0);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operations", operations);
+        result.put("roundTripsPerOperation", (double) roundTrips.get() / operations);
+        result.put("bytesSentPerOperation", bytesSent.get() / operations);
+        result.put("bytesReceivedPerOperation", bytesReceived.get() / operations);
+        result.put("latencyMillis", latencyMillis);
+        return result;
+    }
+
+    private class TrafficListener implements CommandListener {
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (measuring.get()) {
+                roundTrips.incrementAndGet();
+                bytesSent.addAndGet(sizeOf(event.getCommand()));
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            if (measuring.get()) {
+                bytesReceived.addAndGet(sizeOf(event.getResponse()));
+            }
+        }
+
+        private long sizeOf(BsonDocument document) {
+            return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compares the JSON and CBOR encodings of the STOMP chat frames
+ * The mappers are configured like the backend's: JSON as Spring Boot's default message
+ * converter writes it (all fields, ISO timestamps) and CBOR as CborMessageConverter does
+ * (null fields left out, epoch-millis timestamps). For a chat, a typing and a reconnect
+ * sync frame it reports the encoded size and the encode and decode time per frame.
+ *
+ * Runs offline; no backend is needed.
+ *
+ * Usage: java -Dloader.main=com.whispersofus.loadtest.PayloadCodecBenchmark -cp chat-loadtest.jar
+ *        org.springframework.boot.loader.launch.PropertiesLauncher --iterations=200000
+ */
+public class PayloadCodecBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadCodecBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestConfig.parseArguments(args);
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "200000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup-iterations", "50000"));
+        int contentLength = Integer.parseInt(options.getOrDefault("content-length", "80"));
+        Path output = Paths.get(options.getOrDefault("output", "payload-codec-report.json")).toAbsolutePath();
+
+        Map<String, Object> report = new PayloadCodecBenchmark().run(iterations, warmup, contentLength);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Report written to {}", output);
+    }
+
+    public Map<String, Object> run(int iterations, int warmup, int contentLength) throws IOException {
+        Map<String, ObjectMapper> codecs = new LinkedHashMap<>();
+        codecs.put("json", jsonMapper());
+        codecs.put("cbor", cborMapper());
+
+        Map<String, ChatFrame> frames = new LinkedHashMap<>();
+        frames.put("chat", chatFrame(contentLength));
+        frames.put("typing", typingFrame());
+        frames.put("sync50", syncFrame(50, contentLength));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, ChatFrame> frame : frames.entrySet()) {
+            Map<String, Object> byCodec = new LinkedHashMap<>();
+            for (Map.Entry<String, ObjectMapper> codec : codecs.entrySet()) {
+                int frameIterations = frame.getKey().startsWith("sync") ? Math.max(1, iterations / 50) : iterations;
+                byCodec.put(codec.getKey(), measure(codec.getValue(), frame.getValue(), frameIterations, warmup));
+            }
+            Map<?, ?> json = (Map<?, ?>) byCodec.get("json");
+            Map<?, ?> cbor = (Map<?, ?>) byCodec.get("cbor");
+            byCodec.put("cborToJsonBytes", ratio((Integer) cbor.get("bytes"), (Integer) json.get("bytes")));
+            results.put(frame.getKey(), byCodec);
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("iterations", iterations);
+        config.put("warmupIterations", warmup);
+        config.put("contentLength", contentLength);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("results", results);
+        return report;
+    }
+
+    private Map<String, Object> measure(ObjectMapper mapper, ChatFrame frame, int iterations, int warmup) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(frame);
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += mapper.writeValueAsBytes(frame).length;
+            sink += mapper.readValue(encoded, ChatFrame.class).hashCode();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.writeValueAsBytes(frame).length;
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.readValue(encoded, ChatFrame.class).hashCode();
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bytes", encoded.length);
+        result.put("encodeNanosPerFrame", encodeNanos / iterations);
+        result.put("decodeNanosPerFrame", decodeNanos / iterations);
+        // Keeps the loops from being optimized away
+        result.put("checksum", sink & 0xff);
+        return result;
+    }
+
+    private static double ratio(int numerator, int denominator) {
+        return Math.round(numerator * 1000.0 / denominator) / 1000.0;
+    }
+
+    // Spring Boot's message converter mapper: every field, ISO-8601 timestamps
+    private static ObjectMapper jsonMapper() {
+        return JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    }
+
+    // Same settings as CborMessageConverter in the backend
+    private static ObjectMapper cborMapper() {
+        SimpleModule epochMillis = new SimpleModule("EpochMillisLocalDateTime");
+        epochMillis.addSerializer(LocalDateTime.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        });
+        epochMillis.addDeserializer(LocalDateTime.class, new JsonDeserializer<>() {
+            @Override
+            public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+            }
+        });
+
+        return CBORMapper.builder()
+            .addModule(epochMillis)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    }
+
+    private static ChatFrame chatFrame(int contentLength) {
+        ChatFrame frame = new ChatFrame();
+        frame.id = "65f1c2a9e4b0a1d2c3e4f5a6";
+        frame.senderId = "65f1c2a9e4b0a1d2c3e4f501";
+        frame.senderName = "Benchmark Sender";
+        frame.receiverId = "65f1c2a9e4b0a1d2c3e4f502";
+        frame.content = "x".repeat(contentLength);
+        frame.messageType = "TEXT";
+        frame.timestamp = LocalDateTime.now();
+        frame.type = "CHAT";
+        return frame;
+    }
+
+    private static ChatFrame typingFrame() {
+        ChatFrame frame = new ChatFrame();
+        frame.senderId = "65f1c2a9e4b0a1d2c3e4f501";
+        frame.senderName = "Benchmark Sender";
+        frame.receiverId = "65f1c2a9e4b0a1d2c3e4f502";
+        frame.timestamp = LocalDateTime.now();
+        frame.type = "TYPING";
+        return frame;
+    }
+
+    private static ChatFrame syncFrame(int messages, int contentLength) {
+        ChatFrame frame = new ChatFrame();
+        frame.receiverId = "65f1c2a9e4b0a1d2c3e4f502";
+        frame.timestamp = LocalDateTime.now();
+        frame.type = "SYNC";
+        frame.hasMore = false;
+        frame.messages = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            ChatFrame message = chatFrame(contentLength);
+            message.id = UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+            frame.messages.add(message);
+        }
+        return frame;
+    }
+
+    /**
+     * Field-for-field copy of the backend's WebSocketChatMessage
+     */
+    public static class ChatFrame {
+        public String id;
+        public String senderId;
+        public String senderName;
+        public String receiverId;
+        public String content;
+        public String messageType;
+        public LocalDateTime timestamp;
+        public String chatRoomId;
+        public String lastSeenMessageId;
+        public List<ChatFrame> messages;
+        public Boolean hasMore;
+        public String type;
+    }
+}
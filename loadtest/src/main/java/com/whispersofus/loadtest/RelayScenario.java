@@ -0,0 +1,118 @@
+package com.whispersofus.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that user-queue delivery works across backend instances in broker relay mode
+ * Provisions couples through one instance, connects one partner of every couple to
+ * instance A and the other to instance B, and has both sides send. Every message must
+ * reach the partner on the other instance through the shared broker, and no frame may
+ * reach another couple.
+ *
+ * Usage: java -Dloader.main=com.whispersofus.loadtest.RelayScenario -cp chat-loadtest.jar
+ *        org.springframework.boot.loader.launch.PropertiesLauncher
+ *        --base-url=http://localhost:8080 --peer-url=http://localhost:8081
+ */
+public class RelayScenario {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayScenario.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestConfig.parseArguments(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        String peerUrl = options.getOrDefault("peer-url", "http://localhost:8081");
+        int couples = Integer.parseInt(options.getOrDefault("couples", "10"));
+        int messages = Integer.parseInt(options.getOrDefault("messages", "20"));
+        long timeoutSeconds = Long.parseLong(options.getOrDefault("timeout-seconds", "15"));
+        Path output = Paths.get(options.getOrDefault("output", "relay-report.json")).toAbsolutePath();
+
+        Map<String, Object> report = new RelayScenario().run(baseUrl, peerUrl, couples, messages, timeoutSeconds);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Report written to {}", output);
+        System.exit(Boolean.TRUE.equals(report.get("passed")) ? 0 : 1);
+    }
+
+    public Map<String, Object> run(String baseUrl, String peerUrl, int coupleCount, int messages,
+                                   long timeoutSeconds) throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeatScheduler.initialize();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(heartbeatScheduler);
+        stompClient.setDefaultHeartbeat(new long[] {10_000, 10_000});
+
+        // Partnerships are stored in the shared database, so either instance can create them
+        CoupleProvisioner provisioner = new CoupleProvisioner(baseUrl, runId);
+        List<SimulatedUser[]> couples = new ArrayList<>();
+        for (int i = 0; i < coupleCount; i++) {
+            SimulatedUser[] couple = provisioner.provision(i);
+            couple[0].connect(stompClient, baseUrl + "/ws-chat", recorder);
+            couple[1].connect(stompClient, peerUrl + "/ws-chat", recorder);
+            couples.add(couple);
+        }
+        log.info("Run {}: {} couples split across {} and {}", runId, couples.size(), baseUrl, peerUrl);
+
+        // Let both instances see the subscriptions in the shared user registry
+        Thread.sleep(1_000);
+        recorder.startMeasuring();
+        for (int i = 0; i < messages; i++) {
+            for (SimulatedUser[] couple : couples) {
+                couple[0].sendMessage();
+                couple[1].sendMessage();
+            }
+        }
+        recorder.stopMeasuring();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (recorder.getMessagesDelivered() < recorder.getMessagesSent() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        long sent = recorder.getMessagesSent();
+        long delivered = recorder.getMessagesDelivered();
+        long foreign = recorder.getForeignFrames();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("baseUrl", baseUrl);
+        report.put("peerUrl", peerUrl);
+        report.put("couples", couples.size());
+        report.put("results", recorder.summary(0));
+        report.put("passed", sent == (long) couples.size() * messages * 2 && delivered == sent && foreign == 0);
+
+        for (SimulatedUser[] couple : couples) {
+            couple[0].disconnect();
+            couple[1].disconnect();
+        }
+        heartbeatScheduler.shutdown();
+        return report;
+    }
+}
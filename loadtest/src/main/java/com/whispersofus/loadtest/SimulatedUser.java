@@ -0,0 +1,147 @@
+package com.whispersofus.loadtest;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One partner of a simulated couple, holding its own STOMP session on /ws-chat
+ * Outgoing chat messages carry the sender's System.nanoTime() in their content so the
+ * partner's session can compute the end-to-end delivery latency on receipt
+ */
+public class SimulatedUser {
+
+    static final String CONTENT_PREFIX = "lt|";
+
+    private static final String MESSAGES_DESTINATION = "/user/queue/messages";
+
+    private final String firebaseUid;
+    private final String userId;
+    private final String partnerId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private StompSession session;
+    private LatencyRecorder recorder;
+
+    public SimulatedUser(String firebaseUid, String userId, String partnerId) {
+        this.firebaseUid = firebaseUid;
+        this.userId = userId;
+        this.partnerId = partnerId;
+    }
+
+    /**
+     * Open the STOMP session and subscribe to the user's message queue
+     * @param client Shared STOMP client
+     * @param url SockJS endpoint URL
+     * @param recorder Recorder receiving latencies and counters
+     */
+    public void connect(WebSocketStompClient client, String url, LatencyRecorder recorder) throws Exception {
+        this.recorder = recorder;
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Firebase-UID", firebaseUid);
+
+        session = client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                        byte[] payload, Throwable exception) {
+                recorder.error();
+            }
+
+            @Override
+            public void handleTransportError(StompSession session, Throwable exception) {
+                recorder.error();
+            }
+        }).get(30, TimeUnit.SECONDS);
+
+        session.subscribe(MESSAGES_DESTINATION, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onFrame((Map<?, ?>) payload);
+            }
+        });
+
+        Map<String, Object> join = new HashMap<>();
+        join.put("senderId", firebaseUid);
+        join.put("type", "JOIN");
+        session.send("/app/chat.addUser", join);
+    }
+
+    public void sendMessage() {
+        if (!isConnected()) {
+            recorder.error();
+            return;
+        }
+        Map<String, Object> message = new HashMap<>();
+        message.put("senderId", firebaseUid);
+        message.put("messageType", "TEXT");
+        message.put("type", "CHAT");
+        long sentAt = System.nanoTime();
+        message.put("content", CONTENT_PREFIX + sentAt + "|" + sequence.incrementAndGet());
+
+        session.send("/app/chat.sendMessage", message);
+        recorder.messageSent(sentAt);
+    }
+
+    public void sendTyping(boolean typing) {
+        if (!isConnected()) {
+            return;
+        }
+        session.send(typing ? "/app/chat.typing" : "/app/chat.stopTyping", Map.of());
+        recorder.typingSent();
+    }
+
+    public boolean isConnected() {
+        return session != null && session.isConnected();
+    }
+
+    public void disconnect() {
+        if (isConnected()) {
+            session.disconnect();
+        }
+    }
+
+    private void onFrame(Map<?, ?> frame) {
+        recorder.frameReceived();
+        Object sender = frame.get("senderId");
+        if (sender != null && !userId.equals(sender) && !partnerId.equals(sender)) {
+            // Frames of other couples must never reach this session
+            recorder.foreignFrame();
+        }
+
+        Object type = frame.get("type");
+        if ("TYPING".equals(type) || "STOP_TYPING".equals(type)) {
+            recorder.typingReceived();
+            return;
+        }
+        if (!"CHAT".equals(type) || userId.equals(frame.get("senderId"))) {
+            // Echo of our own message or a non-chat frame
+            return;
+        }
+
+        Object content = frame.get("content");
+        if (content instanceof String text && text.startsWith(CONTENT_PREFIX)) {
+            String[] parts = text.split("\\|");
+            recorder.messageDelivered(Long.parseLong(parts[1]));
+        }
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}